@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend;
+
+import com.talkforgeai.backend.assistant.service.ModelCatalogueRefreshJob;
+import java.time.Duration;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QuartzConfiguration {
+
+  @Bean
+  JobDetail modelCatalogueRefreshJobDetail() {
+    return JobBuilder.newJob(ModelCatalogueRefreshJob.class)
+        .withIdentity(ModelCatalogueRefreshJob.JOB_KEY)
+        .storeDurably()
+        .build();
+  }
+
+  @Bean
+  Trigger modelCatalogueRefreshTrigger(JobDetail modelCatalogueRefreshJobDetail,
+      @Value("${talkforgeai.cache.models.refresh-interval:30m}") Duration refreshInterval) {
+    return TriggerBuilder.newTrigger()
+        .forJob(modelCatalogueRefreshJobDetail)
+        .withIdentity("modelCatalogueRefreshTrigger")
+        .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+            .withIntervalInMilliseconds(refreshInterval.toMillis())
+            .repeatForever())
+        .startNow()
+        .build();
+  }
+}
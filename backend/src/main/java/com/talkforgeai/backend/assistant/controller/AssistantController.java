@@ -28,6 +28,7 @@ import com.talkforgeai.backend.assistant.dto.ThreadTitleGenerationRequestDto;
 import com.talkforgeai.backend.assistant.dto.ThreadTitleUpdateRequestDto;
 import com.talkforgeai.backend.assistant.service.AssistantService;
 import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.backend.storage.ImageResourceService;
 import com.talkforgeai.service.openai.assistant.dto.ListRequest;
 import com.talkforgeai.service.openai.assistant.dto.Message;
 import com.talkforgeai.service.openai.assistant.dto.PostMessageRequest;
@@ -36,16 +37,16 @@ import com.talkforgeai.service.openai.assistant.dto.RunConversationRequest;
 import com.talkforgeai.service.openai.exception.OpenAIException;
 import jakarta.websocket.server.PathParam;
 import java.io.IOException;
-import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StreamUtils;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -56,6 +57,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -67,10 +71,17 @@ public class AssistantController {
 
   private final FileStorageService fileStorageService;
 
+  private final ImageResourceService imageResourceService;
+
+  private final Duration runStreamTimeout;
+
   public AssistantController(AssistantService assistantService,
-      FileStorageService fileStorageService) {
+      FileStorageService fileStorageService, ImageResourceService imageResourceService,
+      @Value("${talkforgeai.assistant.run-stream-timeout:10m}") Duration runStreamTimeout) {
     this.assistantService = assistantService;
     this.fileStorageService = fileStorageService;
+    this.imageResourceService = imageResourceService;
+    this.runStreamTimeout = runStreamTimeout;
   }
 
   @GetMapping("/assistants/models")
@@ -118,19 +129,10 @@ public class AssistantController {
   }
 
   @GetMapping("/assistants/images/{imageFile}")
-  public ResponseEntity<byte[]> getImage(@PathVariable String imageFile) {
-    try {
-      Path imgFilePath = fileStorageService.getAssistantsDirectory().resolve(imageFile);
-      Resource resource = new FileSystemResource(imgFilePath);
-      byte[] imageBytes = StreamUtils.copyToByteArray(resource.getInputStream());
-
-      return ResponseEntity.ok()
-          .contentType(MediaType.IMAGE_PNG)
-          .body(imageBytes);
-    } catch (IOException e) {
-      LOGGER.error("Error loading image file: {}.", imageFile, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  public ResponseEntity<Resource> getImage(@PathVariable String imageFile,
+      @RequestParam(name = "w", required = false) Integer width) {
+    return imageResourceService.serve(fileStorageService.getAssistantsDirectory(), width,
+        imageFile);
   }
 
   @PostMapping("/assistants/images/upload")
@@ -177,6 +179,30 @@ public class AssistantController {
     return assistantService.runConversation(threadId, runConversationRequest);
   }
 
+  /**
+   * Streams the run as server-sent events. Rendering images or diagrams can keep a run busy for
+   * minutes, so this endpoint has its own timeout instead of the global async request timeout.
+   */
+  @PostMapping(value = "/threads/{threadId}/runs/stream",
+      produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamRun(@PathVariable("threadId") String threadId,
+      @RequestBody RunConversationRequest runConversationRequest) {
+    SseEmitter emitter = new SseEmitter(runStreamTimeout.toMillis());
+    Disposable subscription = assistantService.streamRun(threadId, runConversationRequest)
+        .subscribe(event -> send(emitter, event), emitter::completeWithError, emitter::complete);
+    emitter.onTimeout(subscription::dispose);
+    emitter.onCompletion(subscription::dispose);
+    return emitter;
+  }
+
+  private static void send(SseEmitter emitter, ServerSentEvent<Object> event) {
+    try {
+      emitter.send(SseEmitter.event().name(event.event()).data(event.data()));
+    } catch (IOException e) {
+      throw Exceptions.propagate(e);
+    }
+  }
+
   @GetMapping("/threads/{threadId}/runs/{runId}")
   public Run getRun(@PathVariable("threadId") String threadId,
       @PathVariable("runId") String runId) {
@@ -191,18 +217,11 @@ public class AssistantController {
 
 
   @GetMapping("/threads/{threadId}/{filename}")
-  public ResponseEntity<byte[]> getImage(@PathVariable String threadId,
-      @PathVariable String filename) {
-
-    try {
-      byte[] imageBytes = assistantService.getImage(threadId, filename);
-
-      return ResponseEntity.ok()
-          .contentType(MediaType.IMAGE_PNG)
-          .body(imageBytes);
-    } catch (IOException ioException) {
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  public ResponseEntity<Resource> getImage(@PathVariable String threadId,
+      @PathVariable String filename,
+      @RequestParam(name = "w", required = false) Integer width) {
+    return imageResourceService.serve(fileStorageService.getThreadDirectory(), width, threadId,
+        filename);
   }
 
   @DeleteMapping("/threads/{threadId}")
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.dto;
+
+/**
+ * HTML of a completed part of a message that is still being streamed. {@code pending} is the raw
+ * text after it that has not been transformed yet.
+ */
+public record MessageBlockDto(String messageId, String html, String pending) {
+}
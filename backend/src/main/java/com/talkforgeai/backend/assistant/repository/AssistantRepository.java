@@ -17,9 +17,18 @@
 package com.talkforgeai.backend.assistant.repository;
 
 import com.talkforgeai.backend.assistant.domain.AssistantEntity;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AssistantRepository extends JpaRepository<AssistantEntity, String> {
+
+    /**
+     * Loads the given assistants together with their properties in a single query.
+     */
+    @EntityGraph(attributePaths = "properties")
+    List<AssistantEntity> findAllWithPropertiesByIdIn(Collection<String> ids);
 }
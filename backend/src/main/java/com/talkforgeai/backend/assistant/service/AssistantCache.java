@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.service;
+
+import com.talkforgeai.service.openai.assistant.OpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.dto.Assistant;
+import com.talkforgeai.service.openai.exception.OpenAIException;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded write-through cache of OpenAI {@link Assistant} records.
+ * <p>
+ * Entries older than the TTL are still served, but trigger a background revalidation, so callers
+ * only block on OpenAI for assistants that were never seen before. An entry is only evicted if
+ * OpenAI reports the assistant as gone; rate limits, server errors and network failures keep the
+ * stale entry.
+ */
+@Component
+public class AssistantCache {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(AssistantCache.class);
+
+  private final OpenAIAssistantService openAIAssistantService;
+  private final Duration ttl;
+  private final Clock clock;
+  private final Map<String, CachedAssistant> cache;
+  private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+  private final ExecutorService revalidationExecutor;
+
+  @Autowired
+  public AssistantCache(OpenAIAssistantService openAIAssistantService,
+      @Value("${talkforgeai.cache.assistants.ttl:5m}") Duration ttl,
+      @Value("${talkforgeai.cache.assistants.max-size:256}") int maxSize) {
+    this(openAIAssistantService, ttl, maxSize, Clock.systemUTC(),
+        Executors.newSingleThreadExecutor(new CustomizableThreadFactory("AssistantCache-")));
+  }
+
+  AssistantCache(OpenAIAssistantService openAIAssistantService, Duration ttl, int maxSize,
+      Clock clock, ExecutorService revalidationExecutor) {
+    this.openAIAssistantService = openAIAssistantService;
+    this.ttl = ttl;
+    this.clock = clock;
+    this.revalidationExecutor = revalidationExecutor;
+    this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedAssistant>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedAssistant> eldest) {
+        return size() > maxSize;
+      }
+    });
+  }
+
+  public Assistant get(String assistantId) {
+    CachedAssistant cached = cache.get(assistantId);
+
+    if (cached == null) {
+      Assistant assistant = openAIAssistantService.retrieveAssistant(assistantId);
+      put(assistant);
+      return assistant;
+    }
+
+    if (cached.loadedAt().plus(ttl).isBefore(clock.instant())) {
+      revalidate(assistantId);
+    }
+
+    return cached.assistant();
+  }
+
+  public void put(Assistant assistant) {
+    if (assistant != null && assistant.id() != null) {
+      cache.put(assistant.id(), new CachedAssistant(assistant, clock.instant()));
+    }
+  }
+
+  public void putAll(Collection<Assistant> assistants) {
+    assistants.forEach(this::put);
+  }
+
+  public void evict(String assistantId) {
+    cache.remove(assistantId);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    revalidationExecutor.shutdownNow();
+  }
+
+  private void revalidate(String assistantId) {
+    if (!revalidating.add(assistantId)) {
+      return;
+    }
+
+    revalidationExecutor.execute(() -> {
+      try {
+        put(openAIAssistantService.retrieveAssistant(assistantId));
+      } catch (RuntimeException e) {
+        if (e instanceof OpenAIException openAIException
+            && openAIException.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
+          LOGGER.info("Evicting assistant {}, it no longer exists.", assistantId);
+          evict(assistantId);
+        } else {
+          LOGGER.warn("Revalidating assistant {} failed, serving stale entry.", assistantId, e);
+        }
+      } finally {
+        revalidating.remove(assistantId);
+      }
+    });
+  }
+
+  private record CachedAssistant(Assistant assistant, Instant loadedAt) {
+
+  }
+}
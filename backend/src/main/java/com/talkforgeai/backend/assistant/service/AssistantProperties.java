@@ -33,7 +33,8 @@ public enum AssistantProperties {
     FEATURE_PLANTUML("feature_plantUMLGeneration", "false"),
     FEATURE_IMAGEGENERATION("feature_imageGeneration", "false"),
     FEATURE_AUTOSPEAKDEFAULT("feature_autoSpeakDefault", "false"),
-    FEATURE_TITLEGENERATION("feature_titleGeneration", "true");
+    FEATURE_TITLEGENERATION("feature_titleGeneration", "true"),
+    PLANTUML_FORMAT("plantuml_format", "png");
     private final String key;
     private final String defaultValue;
 
@@ -22,6 +22,7 @@ import com.talkforgeai.backend.assistant.domain.MessageEntity;
 import com.talkforgeai.backend.assistant.domain.ThreadEntity;
 import com.talkforgeai.backend.assistant.dto.AssistantDto;
 import com.talkforgeai.backend.assistant.dto.GenerateImageResponse;
+import com.talkforgeai.backend.assistant.dto.MessageBlockDto;
 import com.talkforgeai.backend.assistant.dto.MessageListParsedDto;
 import com.talkforgeai.backend.assistant.dto.ParsedMessageDto;
 import com.talkforgeai.backend.assistant.dto.ProfileImageUploadResponse;
@@ -34,17 +35,21 @@ import com.talkforgeai.backend.assistant.repository.AssistantRepository;
 import com.talkforgeai.backend.assistant.repository.MessageRepository;
 import com.talkforgeai.backend.assistant.repository.ThreadRepository;
 import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.backend.storage.ImageType;
+import com.talkforgeai.backend.storage.ImageVariantService;
+import com.talkforgeai.backend.transformers.IncrementalMessageProcessor;
 import com.talkforgeai.backend.transformers.MessageProcessor;
 import com.talkforgeai.service.openai.assistant.OpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.ReactiveOpenAIAssistantService;
 import com.talkforgeai.service.openai.assistant.dto.Assistant;
 import com.talkforgeai.service.openai.assistant.dto.AssistantList;
-import com.talkforgeai.service.openai.assistant.dto.GptModel;
 import com.talkforgeai.service.openai.assistant.dto.ListRequest;
 import com.talkforgeai.service.openai.assistant.dto.Message;
 import com.talkforgeai.service.openai.assistant.dto.MessageList;
 import com.talkforgeai.service.openai.assistant.dto.PostMessageRequest;
 import com.talkforgeai.service.openai.assistant.dto.Run;
 import com.talkforgeai.service.openai.assistant.dto.RunConversationRequest;
+import com.talkforgeai.service.openai.assistant.dto.RunStreamEvent;
 import com.talkforgeai.service.openai.assistant.dto.Thread;
 import com.talkforgeai.service.openai.chat.OpenAIChatService;
 import com.talkforgeai.service.openai.chat.dto.OpenAIChatMessage;
@@ -54,10 +59,9 @@ import com.talkforgeai.service.openai.image.OpenAIImageService;
 import com.talkforgeai.service.openai.image.dto.OpenAIImageRequest;
 import com.talkforgeai.service.openai.image.dto.OpenAIImageResponse;
 import jakarta.transaction.Transactional;
-import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -68,16 +72,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import javax.imageio.ImageIO;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import net.sourceforge.plantuml.FileFormat;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 public class AssistantService {
@@ -86,6 +92,8 @@ public class AssistantService {
 
   private final OpenAIAssistantService openAIAssistantService;
 
+  private final ReactiveOpenAIAssistantService reactiveAssistantService;
+
   private final OpenAIChatService openAIChatService;
   private final OpenAIImageService openAIImageService;
   private final AssistantRepository assistantRepository;
@@ -98,12 +106,24 @@ public class AssistantService {
 
   private final AssistantMapper assistantMapper;
 
+  private final RunStatusTracker runStatusTracker;
+
+  private final AssistantCache assistantCache;
+
+  private final ModelCatalogue modelCatalogue;
+
+  private final ImageVariantService imageVariantService;
+
   public AssistantService(OpenAIAssistantService openAIAssistantService,
+      ReactiveOpenAIAssistantService reactiveAssistantService,
       OpenAIChatService openAIChatService, OpenAIImageService openAIImageService,
       AssistantRepository assistantRepository, MessageRepository messageRepository,
       ThreadRepository threadRepository, FileStorageService fileStorageService,
-      MessageProcessor messageProcessor, AssistantMapper assistantMapper) {
+      MessageProcessor messageProcessor, AssistantMapper assistantMapper,
+      RunStatusTracker runStatusTracker, AssistantCache assistantCache,
+      ModelCatalogue modelCatalogue, ImageVariantService imageVariantService) {
     this.openAIAssistantService = openAIAssistantService;
+    this.reactiveAssistantService = reactiveAssistantService;
     this.openAIChatService = openAIChatService;
     this.openAIImageService = openAIImageService;
     this.assistantRepository = assistantRepository;
@@ -112,10 +132,14 @@ public class AssistantService {
     this.fileStorageService = fileStorageService;
     this.messageProcessor = messageProcessor;
     this.assistantMapper = assistantMapper;
+    this.runStatusTracker = runStatusTracker;
+    this.assistantCache = assistantCache;
+    this.modelCatalogue = modelCatalogue;
+    this.imageVariantService = imageVariantService;
   }
 
   public AssistantDto retrieveAssistant(String assistantId) {
-    Assistant assistant = this.openAIAssistantService.retrieveAssistant(assistantId);
+    Assistant assistant = assistantCache.get(assistantId);
 
     if (assistant != null) {
       Optional<AssistantEntity> assistantEntity = assistantRepository.findById(assistant.id());
@@ -130,21 +154,21 @@ public class AssistantService {
 
   public List<AssistantDto> listAssistants(ListRequest listAssistantsRequest) {
     AssistantList assistantList = this.openAIAssistantService.listAssistants(listAssistantsRequest);
+    assistantCache.putAll(assistantList.data());
+
+    List<String> assistantIds = assistantList.data().stream().map(Assistant::id).toList();
+    Map<String, AssistantEntity> assistantEntities = assistantRepository
+        .findAllWithPropertiesByIdIn(assistantIds).stream()
+        .collect(Collectors.toMap(AssistantEntity::getId, Function.identity()));
 
     List<AssistantDto> assistantDtoList = new ArrayList<>();
 
     assistantList.data().forEach(assistant -> {
-      Optional<AssistantEntity> assistantEntity = assistantRepository.findById(assistant.id());
-
-      assistantEntity.ifPresent(entity -> {
-        AssistantDto assistantDto = assistantMapper.mapAssistantDto(
-            assistant,
-            entity
-        );
-
-        assistantDtoList.add(assistantDto);
+      AssistantEntity entity = assistantEntities.get(assistant.id());
 
-      });
+      if (entity != null) {
+        assistantDtoList.add(assistantMapper.mapAssistantDto(assistant, entity));
+      }
     });
 
     return assistantDtoList;
@@ -154,6 +178,7 @@ public class AssistantService {
   public void syncAssistants() {
     AssistantList assistantList = this.openAIAssistantService.listAssistants(new ListRequest());
     List<AssistantEntity> assistantEntities = assistantRepository.findAll();
+    assistantCache.putAll(assistantList.data());
 
     // Create
     assistantList.data().forEach(assistant -> {
@@ -190,6 +215,7 @@ public class AssistantService {
       if (assistant.isEmpty()) {
         LOGGER.info("Assistant not found. Deleting entity: {}", entity.getId());
         assistantRepository.delete(entity);
+        assistantCache.evict(entity.getId());
       }
     });
   }
@@ -218,25 +244,87 @@ public class AssistantService {
   }
 
   public Run runConversation(String threadId, RunConversationRequest runConversationRequest) {
-    return this.openAIAssistantService.runConversation(threadId, runConversationRequest);
+    Run run = this.openAIAssistantService.runConversation(threadId, runConversationRequest);
+    runStatusTracker.track(run);
+    return run;
+  }
+
+  /**
+   * Runs the conversation with streaming enabled. Message text is forwarded as {@code delta}
+   * events while it is generated. Parts of a message that can no longer change are transformed
+   * right away and sent as {@code block} events; once a message is complete, the concatenated
+   * HTML is stored and sent as a {@code message} event. Run state changes are sent as {@code run}
+   * events.
+   */
+  public Flux<ServerSentEvent<Object>> streamRun(String threadId,
+      RunConversationRequest runConversationRequest) {
+    return Flux.defer(() -> {
+      Map<String, IncrementalMessageProcessor> processors = new HashMap<>();
+
+      // Transforming may render diagrams and images, which must not block the response stream.
+      return reactiveAssistantService.streamRun(threadId, runConversationRequest)
+          .publishOn(Schedulers.boundedElastic())
+          .concatMapIterable(event -> toServerSentEvents(threadId, event, processors));
+    });
+  }
+
+  private List<ServerSentEvent<Object>> toServerSentEvents(String threadId,
+      RunStreamEvent event, Map<String, IncrementalMessageProcessor> processors) {
+    return switch (event) {
+      case RunStreamEvent.RunUpdated runUpdated -> List.of(sse("run", runUpdated.run()));
+      case RunStreamEvent.MessageCreated created -> {
+        Message message = created.message();
+        processors.put(message.id(), messageProcessor.incremental(threadId, message.id(),
+            plantUmlFormat(message.assistantId())));
+        yield List.of();
+      }
+      case RunStreamEvent.TextDelta textDelta -> {
+        IncrementalMessageProcessor processor = processors.computeIfAbsent(
+            textDelta.messageId(),
+            id -> messageProcessor.incremental(threadId, id, plantUmlFormat(null)));
+
+        List<ServerSentEvent<Object>> events = new ArrayList<>();
+        events.add(sse("delta", textDelta));
+        for (String html : processor.append(textDelta.text())) {
+          events.add(sse("block",
+              new MessageBlockDto(textDelta.messageId(), html, processor.pendingText())));
+        }
+        yield events;
+      }
+      case RunStreamEvent.MessageCompleted completed -> {
+        Message message = completed.message();
+        IncrementalMessageProcessor processor = processors.remove(message.id());
+
+        ParsedMessageDto parsedMessage;
+        if (processor != null) {
+          processor.finish();
+          parsedMessage = save(message, processor.html());
+        } else {
+          parsedMessage = postProcess(threadId, message);
+        }
+        yield List.of(sse("message", parsedMessage));
+      }
+    };
+  }
+
+  private static ServerSentEvent<Object> sse(String event, Object data) {
+    return ServerSentEvent.builder(data).event(event).build();
   }
 
   public MessageListParsedDto listMessages(String threadId, ListRequest listMessagesRequest) {
     MessageList messageList = this.openAIAssistantService.listMessages(threadId,
         listMessagesRequest);
+    List<String> messageIds = messageList.data().stream().map(Message::id).toList();
     Map<String, String> parsedMessages = new HashMap<>();
 
-    messageList.data().forEach(message -> {
-      Optional<MessageEntity> messageEntity = messageRepository.findById(message.id());
-      messageEntity.ifPresent(
-          entity -> parsedMessages.put(message.id(), entity.getParsedContent()));
-    });
+    messageRepository.findAllById(messageIds).forEach(
+        entity -> parsedMessages.put(entity.getId(), entity.getParsedContent()));
 
     return new MessageListParsedDto(messageList, parsedMessages);
   }
 
   public Run retrieveRun(String threadId, String runId) {
-    return this.openAIAssistantService.retrieveRun(threadId, runId);
+    return runStatusTracker.retrieve(threadId, runId);
   }
 
   private ThreadDto mapToDto(ThreadEntity threadEntity) {
@@ -244,22 +332,27 @@ public class AssistantService {
         threadEntity.getCreatedAt());
   }
 
-  @Transactional
+  /**
+   * Transforms the message and stores the result. Not transactional on purpose: rendering
+   * diagrams and images can take a long time, only the final save touches the database.
+   */
   public ParsedMessageDto postProcessMessage(String threadId, String messageId) {
-    Message message = this.openAIAssistantService.retrieveMessage(threadId, messageId);
-    Optional<MessageEntity> messageEntity = messageRepository.findById(messageId);
-
-    MessageEntity newMessageEntity = null;
-    if (messageEntity.isPresent()) {
-      newMessageEntity = messageEntity.get();
-    } else {
-      newMessageEntity = new MessageEntity();
-      newMessageEntity.setId(message.id());
-      newMessageEntity.setParsedContent("");
-    }
+    return postProcess(threadId, this.openAIAssistantService.retrieveMessage(threadId, messageId));
+  }
 
+  private ParsedMessageDto postProcess(String threadId, Message message) {
     String transformed = messageProcessor.transform(message.content().get(0).text().value(),
-        threadId, messageId);
+        threadId, message.id(), plantUmlFormat(message.assistantId()));
+
+    return save(message, transformed);
+  }
+
+  private ParsedMessageDto save(Message message, String transformed) {
+    MessageEntity newMessageEntity = messageRepository.findById(message.id()).orElseGet(() -> {
+      MessageEntity messageEntity = new MessageEntity();
+      messageEntity.setId(message.id());
+      return messageEntity;
+    });
     newMessageEntity.setParsedContent(transformed);
 
     messageRepository.save(newMessageEntity);
@@ -271,10 +364,19 @@ public class AssistantService {
     return parsedMessageDto;
   }
 
-  public byte[] getImage(String threadId, String filename) throws IOException {
-    Path imgFilePath = fileStorageService.getThreadDirectory().resolve(threadId).resolve(filename);
-    Resource resource = new FileSystemResource(imgFilePath);
-    return StreamUtils.copyToByteArray(resource.getInputStream());
+  private FileFormat plantUmlFormat(String assistantId) {
+    if (assistantId == null) {
+      return FileFormat.PNG;
+    }
+
+    // PNG is the fallback for unset or unknown values.
+    return assistantRepository.findAllWithPropertiesByIdIn(List.of(assistantId)).stream()
+        .findFirst()
+        .map(entity -> entity.getProperties().get(AssistantProperties.PLANTUML_FORMAT.getKey()))
+        .map(AssistantPropertyValue::getPropertyValue)
+        .filter("svg"::equalsIgnoreCase)
+        .map(value -> FileFormat.SVG)
+        .orElse(FileFormat.PNG);
   }
 
   @Transactional
@@ -320,7 +422,7 @@ public class AssistantService {
 
   @Transactional
   public void modifyAssistant(String assistantId, AssistantDto modifiedAssistant) {
-    Assistant assistant = openAIAssistantService.retrieveAssistant(assistantId);
+    Assistant assistant = assistantCache.get(assistantId);
 
     if (assistant == null) {
       throw new AssistentException("Assistant not found");
@@ -335,7 +437,8 @@ public class AssistantService {
     Assistant openAIModifiedAssistant = assistantMapper.mapAssistant(modifiedAssistant);
 
     assistantRepository.save(assistantEntity);
-    openAIAssistantService.modifyAssistant(assistantId, openAIModifiedAssistant);
+    assistantCache.put(
+        openAIAssistantService.modifyAssistant(assistantId, openAIModifiedAssistant));
   }
 
   public GenerateImageResponse generateImage(String prompt) throws IOException {
@@ -361,15 +464,14 @@ public class AssistantService {
     LOGGER.info("Downloading image {}...", imageUrl);
 
     try {
-      URI uri = URI.create(imageUrl);
-      try (InputStream in = uri.toURL().openStream()) {
-        Files.copy(in, localFilePath, StandardCopyOption.REPLACE_EXISTING);
-      }
+      openAIImageService.download(imageUrl, localFilePath);
     } catch (Exception ex) {
       LOGGER.error("Failed to download image: {}", imageUrl);
       throw ex;
     }
 
+    imageVariantService.createVariantsAsync(localFilePath);
+
     return fileName;
   }
 
@@ -379,41 +481,38 @@ public class AssistantService {
       throw new IllegalArgumentException("File is empty");
     }
 
-    try {
-      byte[] bytes = file.getBytes();
-
-      String fileEnding = file.getOriginalFilename()
-          .substring(file.getOriginalFilename().lastIndexOf("."));
-      String filename = UUID.randomUUID() + fileEnding;
-
-      Path path = fileStorageService.getAssistantsDirectory().resolve(filename);
-      Files.write(path, bytes);
-
-      if (!isImageFile(path)) {
-        Files.delete(path);
-        throw new AssistentException("File is not an image.");
+    try (InputStream in = new BufferedInputStream(file.getInputStream())) {
+      ImageType imageType = ImageType.detect(in)
+          .filter(type -> type != ImageType.SVG)
+          .orElseThrow(() -> new AssistentException("File is not an image."));
+
+      String filename = UUID.randomUUID() + imageType.getExtension();
+      Path directory = fileStorageService.getAssistantsDirectory();
+      Path path = directory.resolve(filename);
+
+      // Write to a temporary file first, so a failed upload never leaves a partial image behind
+      Path tempFile = Files.createTempFile(directory, "upload-", ".tmp");
+      try {
+        Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tempFile);
       }
 
+      imageVariantService.createVariantsAsync(path);
+
       return new ProfileImageUploadResponse(filename);
     } catch (IOException e) {
       throw new AssistentException("Failed to upload file", e);
     }
   }
 
-  private boolean isImageFile(Path filePath) {
-    try {
-      BufferedImage image = ImageIO.read(filePath.toFile());
-      return image != null;
-    } catch (IOException e) {
-      return false;
-    }
-  }
-
 
   @Transactional
   public AssistantDto createAssistant(AssistantDto modifiedAssistant) {
     Assistant openAIModifiedAssistant = assistantMapper.mapAssistant(modifiedAssistant);
     Assistant newAssistant = openAIAssistantService.createAssistant(openAIModifiedAssistant);
+    assistantCache.put(newAssistant);
 
     AssistantEntity assistantEntity = new AssistantEntity();
     assistantEntity.setId(newAssistant.id());
@@ -426,16 +525,14 @@ public class AssistantService {
   }
 
   public List<String> retrieveModels() {
-    return openAIAssistantService.retrieveModels().data().stream()
-        .map(GptModel::id)
-        .filter(id -> id.startsWith("gpt") && !id.contains("instruct"))
-        .toList();
+    return modelCatalogue.getModelIds();
   }
 
   @Transactional
   public void deleteAssistant(String assistantId) {
     openAIAssistantService.deleteAssistant(assistantId);
     assistantRepository.deleteById(assistantId);
+    assistantCache.evict(assistantId);
   }
 
   @Transactional
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.service;
+
+import com.talkforgeai.service.openai.assistant.OpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.dto.GptModel;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory catalogue of the GPT models usable by assistants.
+ * <p>
+ * The catalogue is refreshed ahead of time by {@link ModelCatalogueRefreshJob}. Reads are always
+ * served from memory; a catalogue older than the max age is still returned while a refresh is
+ * triggered in the background, and failed refreshes keep the last known list. At most one
+ * background refresh is pending at a time, and after a failed refresh the next one is only
+ * triggered after a backoff, so an upstream outage doesn't turn every read into a new job.
+ */
+@Component
+public class ModelCatalogue {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(ModelCatalogue.class);
+
+  static final Duration MIN_RETRY_DELAY = Duration.ofSeconds(30);
+  static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(10);
+
+  private final OpenAIAssistantService openAIAssistantService;
+  private final Scheduler scheduler;
+  private final Duration maxAge;
+  private final Clock clock;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+  private final ReentrantLock refreshLock = new ReentrantLock();
+  private final AtomicBoolean refreshPending = new AtomicBoolean();
+  private volatile Instant nextAttemptAt = Instant.MIN;
+  private volatile Duration retryDelay = MIN_RETRY_DELAY;
+
+  @Autowired
+  public ModelCatalogue(OpenAIAssistantService openAIAssistantService, Scheduler scheduler,
+      @Value("${talkforgeai.cache.models.max-age:1h}") Duration maxAge) {
+    this(openAIAssistantService, scheduler, maxAge, Clock.systemUTC());
+  }
+
+  ModelCatalogue(OpenAIAssistantService openAIAssistantService, Scheduler scheduler,
+      Duration maxAge, Clock clock) {
+    this.openAIAssistantService = openAIAssistantService;
+    this.scheduler = scheduler;
+    this.maxAge = maxAge;
+    this.clock = clock;
+  }
+
+  public List<String> getModelIds() {
+    Snapshot current = snapshot.get();
+
+    if (current == null) {
+      return refresh();
+    }
+
+    if (current.loadedAt().plus(maxAge).isBefore(clock.instant())) {
+      triggerRefresh();
+    }
+
+    return current.modelIds();
+  }
+
+  /**
+   * Reloads the catalogue from OpenAI. Only fails if there is no previous catalogue to fall back
+   * to.
+   */
+  public List<String> refresh() {
+    // A lock rather than synchronized, which would pin a virtual thread for the whole HTTP call.
+    refreshLock.lock();
+    try {
+      List<String> modelIds = openAIAssistantService.retrieveModels().data().stream()
+          .map(GptModel::id)
+          .filter(id -> id.startsWith("gpt") && !id.contains("instruct"))
+          .toList();
+
+      snapshot.set(new Snapshot(modelIds, clock.instant()));
+      retryDelay = MIN_RETRY_DELAY;
+      nextAttemptAt = Instant.MIN;
+      LOGGER.info("Refreshed model catalogue: {} models.", modelIds.size());
+      return modelIds;
+    } catch (RuntimeException e) {
+      nextAttemptAt = clock.instant().plus(retryDelay);
+      retryDelay = min(retryDelay.multipliedBy(2), MAX_RETRY_DELAY);
+
+      Snapshot current = snapshot.get();
+      if (current == null) {
+        throw e;
+      }
+
+      LOGGER.warn("Refreshing model catalogue failed, keeping catalogue from {}.",
+          current.loadedAt(), e);
+      return current.modelIds();
+    } finally {
+      refreshPending.set(false);
+      refreshLock.unlock();
+    }
+  }
+
+  private void triggerRefresh() {
+    if (clock.instant().isBefore(nextAttemptAt) || !refreshPending.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      scheduler.triggerJob(ModelCatalogueRefreshJob.JOB_KEY);
+    } catch (SchedulerException e) {
+      refreshPending.set(false);
+      LOGGER.error("Could not trigger model catalogue refresh.", e);
+    }
+  }
+
+  private static Duration min(Duration a, Duration b) {
+    return a.compareTo(b) <= 0 ? a : b;
+  }
+
+  private record Snapshot(List<String> modelIds, Instant loadedAt) {
+
+  }
+}
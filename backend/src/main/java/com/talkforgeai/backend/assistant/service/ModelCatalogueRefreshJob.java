@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.service;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+@DisallowConcurrentExecution
+public class ModelCatalogueRefreshJob extends QuartzJobBean {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(ModelCatalogueRefreshJob.class);
+  public static final JobKey JOB_KEY = JobKey.jobKey("modelCatalogueRefresh");
+
+  private final ModelCatalogue modelCatalogue;
+
+  public ModelCatalogueRefreshJob(ModelCatalogue modelCatalogue) {
+    this.modelCatalogue = modelCatalogue;
+  }
+
+  @Override
+  protected void executeInternal(JobExecutionContext context) {
+    try {
+      modelCatalogue.refresh();
+    } catch (RuntimeException e) {
+      LOGGER.error("Model catalogue refresh failed.", e);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.service;
+
+import com.talkforgeai.backend.websocket.dto.WSRunStatusMessage;
+import com.talkforgeai.backend.websocket.service.WebSocketService;
+import com.talkforgeai.service.openai.assistant.OpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.dto.Run;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Polls active runs on behalf of all clients watching them.
+ * <p>
+ * Each run is polled by exactly one task, no matter how many clients are interested in it. The
+ * poll interval starts short and backs off while the status does not change. Every status
+ * transition is pushed to {@code /topic/threads/{threadId}/runs/{runId}}, and polling clients are
+ * answered from the last known state instead of a new OpenAI round trip. If tracking stops before
+ * the run reaches a final status, a {@link WSRunStatusMessage#trackingStopped} message is pushed. Concurrent lookups of a
+ * run that is not tracked yet share a single upstream request.
+ */
+@Component
+public class RunStatusTracker {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(RunStatusTracker.class);
+
+  static final Set<String> FINAL_STATUSES = Set.of("completed", "failed", "cancelled", "expired",
+      "requires_action");
+
+  static final long INITIAL_DELAY_MS = 500;
+  static final long MAX_DELAY_MS = 5000;
+  static final double BACKOFF_FACTOR = 1.5;
+  static final int MAX_FAILURES = 3;
+  static final Duration MAX_TRACKING_TIME = Duration.ofMinutes(15);
+  static final Duration RETENTION_AFTER_FINISH = Duration.ofMinutes(1);
+
+  private final OpenAIAssistantService openAIAssistantService;
+  private final WebSocketService webSocketService;
+  private final ScheduledExecutorService scheduler;
+  private final Clock clock;
+  private final Map<String, TrackedRun> trackedRuns = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<Run>> pendingLookups = new ConcurrentHashMap<>();
+
+  @Autowired
+  public RunStatusTracker(OpenAIAssistantService openAIAssistantService,
+      WebSocketService webSocketService) {
+    this(openAIAssistantService, webSocketService,
+        Executors.newScheduledThreadPool(2, new CustomizableThreadFactory("RunTracker-")),
+        Clock.systemUTC());
+  }
+
+  RunStatusTracker(OpenAIAssistantService openAIAssistantService,
+      WebSocketService webSocketService, ScheduledExecutorService scheduler, Clock clock) {
+    this.openAIAssistantService = openAIAssistantService;
+    this.webSocketService = webSocketService;
+    this.scheduler = scheduler;
+    this.clock = clock;
+  }
+
+  public static String topic(String threadId, String runId) {
+    return "/topic/threads/" + threadId + "/runs/" + runId;
+  }
+
+  /**
+   * Starts tracking the given run unless it is already tracked or finished.
+   */
+  public void track(Run run) {
+    if (run == null || isFinal(run)) {
+      return;
+    }
+
+    TrackedRun trackedRun = new TrackedRun(run, clock.instant());
+    if (trackedRuns.putIfAbsent(run.id(), trackedRun) == null) {
+      LOGGER.info("Start tracking run {} of thread {}.", run.id(), run.threadId());
+      publish(run, new WSRunStatusMessage(run));
+      schedule(trackedRun, INITIAL_DELAY_MS);
+    }
+  }
+
+  /**
+   * Returns the last polled state of a tracked run.
+   */
+  public Optional<Run> lastKnown(String runId) {
+    return Optional.ofNullable(trackedRuns.get(runId)).map(trackedRun -> trackedRun.run);
+  }
+
+  /**
+   * Returns the last known state of a run, fetching it from OpenAI and tracking it if it is not
+   * known yet. Callers asking for the same unknown run at the same time wait for one upstream
+   * request instead of issuing their own.
+   */
+  public Run retrieve(String threadId, String runId) {
+    Optional<Run> known = lastKnown(runId);
+    if (known.isPresent()) {
+      return known.get();
+    }
+
+    CompletableFuture<Run> lookup = new CompletableFuture<>();
+    CompletableFuture<Run> pending = pendingLookups.putIfAbsent(runId, lookup);
+    if (pending != null) {
+      return await(pending);
+    }
+
+    try {
+      // Another lookup may have finished between the first check and registering this one.
+      Run run = lastKnown(runId)
+          .orElseGet(() -> openAIAssistantService.retrieveRun(threadId, runId));
+      if (isFinal(run)) {
+        retain(run);
+      } else {
+        track(run);
+      }
+      lookup.complete(run);
+      return run;
+    } catch (RuntimeException e) {
+      lookup.completeExceptionally(e);
+      throw e;
+    } finally {
+      pendingLookups.remove(runId, lookup);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  private void schedule(TrackedRun trackedRun, long delayMs) {
+    trackedRun.delayMs = delayMs;
+    scheduler.schedule(() -> poll(trackedRun), delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Polls the run once and schedules the next poll. Any failure counts towards
+   * {@link #MAX_FAILURES}, so an unexpected exception can neither end the poll chain silently nor
+   * leave a stale entry behind.
+   */
+  private void poll(TrackedRun trackedRun) {
+    Run previous = trackedRun.run;
+    try {
+      Run current = openAIAssistantService.retrieveRun(previous.threadId(), previous.id());
+
+      trackedRun.run = current;
+      trackedRun.failures = 0;
+
+      boolean changed = !current.status().equals(previous.status());
+      if (changed) {
+        LOGGER.info("Run {} changed status from {} to {}.", current.id(), previous.status(),
+            current.status());
+        publish(current, new WSRunStatusMessage(current));
+      }
+
+      if (isFinal(current)) {
+        retain(current);
+      } else if (isExpired(trackedRun)) {
+        LOGGER.warn("Run {} is still {} after {}, stop tracking.", current.id(), current.status(),
+            MAX_TRACKING_TIME);
+        stopTracking(current);
+      } else {
+        long nextDelay = changed
+            ? INITIAL_DELAY_MS
+            : Math.min((long) (trackedRun.delayMs * BACKOFF_FACTOR), MAX_DELAY_MS);
+        schedule(trackedRun, nextDelay);
+      }
+    } catch (RuntimeException e) {
+      if (++trackedRun.failures >= MAX_FAILURES || isExpired(trackedRun)) {
+        LOGGER.error("Giving up tracking run {}.", previous.id(), e);
+        stopTracking(previous);
+      } else {
+        LOGGER.warn("Polling run {} failed, retrying.", previous.id(), e);
+        schedule(trackedRun, MAX_DELAY_MS);
+      }
+    }
+  }
+
+  private void stopTracking(Run run) {
+    trackedRuns.remove(run.id());
+    publish(run, WSRunStatusMessage.trackingStopped(run));
+  }
+
+  private void retain(Run run) {
+    trackedRuns.putIfAbsent(run.id(), new TrackedRun(run, clock.instant()));
+    scheduler.schedule(() -> trackedRuns.remove(run.id()),
+        RETENTION_AFTER_FINISH.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private boolean isExpired(TrackedRun trackedRun) {
+    return clock.instant().isAfter(trackedRun.startedAt.plus(MAX_TRACKING_TIME));
+  }
+
+  private void publish(Run run, WSRunStatusMessage message) {
+    try {
+      webSocketService.sendMessage(topic(run.threadId(), run.id()), message);
+    } catch (RuntimeException e) {
+      // Subscribers re-check the run periodically, so a lost push must not stop polling.
+      LOGGER.warn("Could not publish status of run {}.", run.id(), e);
+    }
+  }
+
+  private static Run await(CompletableFuture<Run> lookup) {
+    try {
+      return lookup.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private static boolean isFinal(Run run) {
+    return FINAL_STATUSES.contains(run.status());
+  }
+
+  static class TrackedRun {
+
+    private final Instant startedAt;
+    private volatile Run run;
+    private volatile long delayMs;
+    private volatile int failures;
+
+    TrackedRun(Run run, Instant startedAt) {
+      this.run = run;
+      this.startedAt = startedAt;
+    }
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Size-bounded index of the files in a cache directory, evicting the least recently used files.
+ * <p>
+ * Entries are files directly in the directory whose names end with one of the given suffixes;
+ * anything else found on load is a leftover of an interrupted write and is deleted. The access
+ * order is kept in memory and saved to a sidecar file whenever an entry is added and on
+ * {@link #save()}, so it survives restarts. Cache files themselves are never touched on a hit:
+ * their inode may be shared with hard links served elsewhere, whose last-modified time must not
+ * change.
+ * <p>
+ * The index itself is guarded by a monitor that is never held during file I/O. Moving a file into
+ * place and deleting an evicted file are serialized per file name instead, so deleting an evicted
+ * file never removes a file that was added again under the same name in the meantime. Locks held
+ * during file I/O are {@link ReentrantLock}s, as a virtual thread waiting for a contended monitor
+ * would pin its carrier thread for the duration of that I/O.
+ */
+public class DiskCacheIndex {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(DiskCacheIndex.class);
+
+  private static final int FILE_LOCK_STRIPES = 32;
+  private static final String ORDER_FILE = ".lru";
+
+  private final Path directory;
+  private final Set<String> suffixes;
+  private final long maxSizeBytes;
+
+  // Access-ordered index of file name to file size.
+  private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+  private final Lock[] fileLocks = new Lock[FILE_LOCK_STRIPES];
+  private final Lock orderFileLock = new ReentrantLock();
+  private long totalBytes;
+
+  public DiskCacheIndex(Path directory, Set<String> suffixes, long maxSizeBytes) {
+    this.directory = directory;
+    this.suffixes = suffixes;
+    this.maxSizeBytes = maxSizeBytes;
+    Arrays.setAll(fileLocks, i -> new ReentrantLock());
+  }
+
+  /**
+   * Creates the directory if needed and indexes the files already in it, in the access order saved
+   * last. Files missing from the saved order, e.g. because the process died before saving it, are
+   * treated as the most recently used, ordered by their last-modified time.
+   */
+  public void load() throws IOException {
+    Files.createDirectories(directory);
+
+    Path orderFile = resolve(ORDER_FILE);
+    List<String> savedOrder = Files.exists(orderFile)
+        ? Files.readAllLines(orderFile, StandardCharsets.UTF_8) : List.of();
+
+    List<Path> files;
+    try (Stream<Path> list = Files.list(directory)) {
+      files = list.filter(file -> !file.equals(orderFile))
+          .sorted(Comparator.comparing(DiskCacheIndex::lastModified))
+          .toList();
+    }
+
+    Map<String, Long> found = new LinkedHashMap<>();
+    for (Path file : files) {
+      String fileName = file.getFileName().toString();
+      if (suffixes.stream().noneMatch(fileName::endsWith)) {
+        Files.deleteIfExists(file);
+        continue;
+      }
+      found.put(fileName, Files.size(file));
+    }
+
+    List<String> evicted;
+    synchronized (index) {
+      for (String fileName : savedOrder) {
+        Long size = found.remove(fileName);
+        if (size != null) {
+          index.put(fileName, size);
+          totalBytes += size;
+        }
+      }
+      found.forEach((fileName, size) -> {
+        index.put(fileName, size);
+        totalBytes += size;
+      });
+      evicted = evict();
+    }
+    delete(evicted);
+    save();
+  }
+
+  public Path resolve(String fileName) {
+    return directory.resolve(fileName);
+  }
+
+  /**
+   * Creates a temporary file in the cache directory, to be passed to {@link #add} once written.
+   */
+  public Path createTempFile(String prefix) throws IOException {
+    return Files.createTempFile(directory, prefix, ".tmp");
+  }
+
+  /**
+   * Returns whether the file is cached and marks it as recently used.
+   */
+  public boolean contains(String fileName) {
+    synchronized (index) {
+      if (index.get(fileName) == null) {
+        return false;
+      }
+    }
+
+    Lock fileLock = fileLock(fileName);
+    fileLock.lock();
+    try {
+      if (!Files.exists(resolve(fileName))) {
+        remove(fileName);
+        return false;
+      }
+    } finally {
+      fileLock.unlock();
+    }
+    return true;
+  }
+
+  /**
+   * Moves the written temporary file into the cache under the given name and evicts the least
+   * recently used files if the cache grew beyond its maximum size.
+   */
+  public void add(String fileName, Path temp) throws IOException {
+    Path file = resolve(fileName);
+
+    List<String> evicted;
+    Lock fileLock = fileLock(fileName);
+    fileLock.lock();
+    try {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      long size = Files.size(file);
+
+      synchronized (index) {
+        Long previous = index.put(fileName, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        evicted = evict();
+      }
+    } finally {
+      fileLock.unlock();
+    }
+    delete(evicted);
+    save();
+  }
+
+  /**
+   * Drops the file from the index, e.g. because it turned out to be missing on disk.
+   */
+  public void remove(String fileName) {
+    synchronized (index) {
+      Long size = index.remove(fileName);
+      if (size != null) {
+        totalBytes -= size;
+      }
+    }
+  }
+
+  /**
+   * Saves the access order of the entries, so it can be restored by {@link #load()}. Failures are
+   * only logged, as they merely degrade the order after a restart.
+   */
+  public void save() {
+    orderFileLock.lock();
+    try {
+      List<String> order;
+      synchronized (index) {
+        order = new ArrayList<>(index.keySet());
+      }
+
+      Path temp = createTempFile(ORDER_FILE);
+      try {
+        Files.write(temp, order, StandardCharsets.UTF_8);
+        Files.move(temp, resolve(ORDER_FILE), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not save the access order of {}.", directory, e);
+    } finally {
+      orderFileLock.unlock();
+    }
+  }
+
+  public int size() {
+    synchronized (index) {
+      return index.size();
+    }
+  }
+
+  public long totalBytes() {
+    synchronized (index) {
+      return totalBytes;
+    }
+  }
+
+  /**
+   * Removes the least recently used entries from the index and returns their file names. The files
+   * are deleted by the caller after leaving the monitor, which keeps file I/O out of it.
+   */
+  private List<String> evict() {
+    List<String> evicted = new ArrayList<>();
+    Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+
+    // Always keep the most recently used entry, even if it exceeds the limit by itself.
+    while (totalBytes > maxSizeBytes && index.size() > 1) {
+      Map.Entry<String, Long> entry = eldest.next();
+      evicted.add(entry.getKey());
+      totalBytes -= entry.getValue();
+      eldest.remove();
+    }
+    return evicted;
+  }
+
+  /**
+   * Deletes evicted files. Must not be called while holding a file lock, as it takes the lock of
+   * each file in turn.
+   */
+  private void delete(List<String> fileNames) {
+    for (String fileName : fileNames) {
+      Lock fileLock = fileLock(fileName);
+      fileLock.lock();
+      try {
+        synchronized (index) {
+          if (index.containsKey(fileName)) {
+            // Added again since it was evicted.
+            continue;
+          }
+        }
+
+        Files.deleteIfExists(resolve(fileName));
+      } catch (IOException e) {
+        LOGGER.warn("Could not delete cache file {}.", resolve(fileName), e);
+      } finally {
+        fileLock.unlock();
+      }
+    }
+  }
+
+  private Lock fileLock(String fileName) {
+    return fileLocks[Math.floorMod(fileName.hashCode(), fileLocks.length)];
+  }
+
+  private static FileTime lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+}
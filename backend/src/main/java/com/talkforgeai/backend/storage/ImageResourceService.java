@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serves image files from the data directory.
+ * <p>
+ * Files are streamed as {@link Resource}, so Spring MVC writes them without loading them into
+ * memory and answers {@code Range} and conditional ({@code If-None-Match},
+ * {@code If-Modified-Since}) requests on its own. Files named with a UUID are never rewritten and
+ * are therefore cached as immutable. A requested width is answered with the matching downscaled
+ * variant from {@link ImageVariantService}.
+ * <p>
+ * SVG files may contain scripts, e.g. from a diagram source written by the model. They are served
+ * with a sandboxing {@code Content-Security-Policy}, so opening one directly does not run them in
+ * the origin of the app.
+ */
+@Service
+public class ImageResourceService {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(ImageResourceService.class);
+
+  private static final Pattern UUID_NAME = Pattern.compile(
+      "^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}.*");
+  static final String SVG_CONTENT_SECURITY_POLICY =
+      "default-src 'none'; style-src 'unsafe-inline'; sandbox";
+  private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365))
+      .cachePrivate()
+      .immutable();
+
+  private final ImageVariantService imageVariantService;
+
+  public ImageResourceService(ImageVariantService imageVariantService) {
+    this.imageVariantService = imageVariantService;
+  }
+
+  /**
+   * Returns the file below the root directory, or 404 if it does not exist or lies outside of it.
+   * If a width is given, a variant of at least that width is returned instead where available.
+   */
+  public ResponseEntity<Resource> serve(Path root, Integer width, String first, String... more) {
+    Path directory = root.normalize();
+    Path file = directory.resolve(Path.of(first, more)).normalize();
+
+    if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+      return ResponseEntity.notFound().build();
+    }
+
+    if (width != null && width > 0) {
+      file = imageVariantService.resolve(file, width);
+    }
+
+    try {
+      long lastModified = Files.getLastModifiedTime(file).toMillis();
+      long size = Files.size(file);
+      String fileName = file.getFileName().toString();
+      MediaType mediaType = mediaType(file);
+
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+          .contentType(mediaType)
+          .eTag(Long.toHexString(size) + "-" + Long.toHexString(lastModified))
+          .lastModified(lastModified)
+          .cacheControl(UUID_NAME.matcher(fileName).matches() ? IMMUTABLE : CacheControl.noCache());
+      if (ImageType.SVG.getMediaType().isCompatibleWith(mediaType)) {
+        response.header("Content-Security-Policy", SVG_CONTENT_SECURITY_POLICY)
+            .header("X-Content-Type-Options", "nosniff");
+      }
+      return response.body(new FileSystemResource(file));
+    } catch (IOException e) {
+      LOGGER.error("Error reading image file {}.", file, e);
+      return ResponseEntity.internalServerError().build();
+    }
+  }
+
+  private MediaType mediaType(Path file) throws IOException {
+    return ImageType.detect(file)
+        .map(ImageType::getMediaType)
+        .or(() -> MediaTypeFactory.getMediaType(file.getFileName().toString()))
+        .orElse(MediaType.APPLICATION_OCTET_STREAM);
+  }
+}
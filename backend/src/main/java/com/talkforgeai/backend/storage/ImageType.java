@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import org.springframework.http.MediaType;
+
+/**
+ * Image formats served by the application, detected from the leading bytes of a file rather than
+ * from its name.
+ */
+public enum ImageType {
+  PNG("image/png", ".png"),
+  JPEG("image/jpeg", ".jpg"),
+  GIF("image/gif", ".gif"),
+  WEBP("image/webp", ".webp"),
+  SVG("image/svg+xml", ".svg");
+
+  /**
+   * Number of leading bytes needed by {@link #detect(byte[], int)}.
+   */
+  public static final int HEADER_LENGTH = 512;
+
+  private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A,
+      '\n'};
+  private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+  private final MediaType mediaType;
+  private final String extension;
+
+  ImageType(String mediaType, String extension) {
+    this.mediaType = MediaType.parseMediaType(mediaType);
+    this.extension = extension;
+  }
+
+  public MediaType getMediaType() {
+    return mediaType;
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+
+  public static Optional<ImageType> detect(byte[] header, int length) {
+    if (startsWith(header, length, PNG_SIGNATURE)) {
+      return Optional.of(PNG);
+    }
+    if (startsWith(header, length, JPEG_SIGNATURE)) {
+      return Optional.of(JPEG);
+    }
+    if (startsWith(header, length, "GIF87a".getBytes(StandardCharsets.US_ASCII))
+        || startsWith(header, length, "GIF89a".getBytes(StandardCharsets.US_ASCII))) {
+      return Optional.of(GIF);
+    }
+    if (length >= 12 && startsWith(header, length, "RIFF".getBytes(StandardCharsets.US_ASCII))
+        && new String(header, 8, 4, StandardCharsets.US_ASCII).equals("WEBP")) {
+      return Optional.of(WEBP);
+    }
+
+    String text = new String(header, 0, length, StandardCharsets.UTF_8).stripLeading();
+    if (text.startsWith("\uFEFF")) {
+      text = text.substring(1).stripLeading();
+    }
+    if ((text.startsWith("<?xml") || text.startsWith("<svg")) && text.contains("<svg")) {
+      return Optional.of(SVG);
+    }
+
+    return Optional.empty();
+  }
+
+  public static Optional<ImageType> detect(Path file) throws IOException {
+    try (InputStream in = Files.newInputStream(file)) {
+      byte[] header = in.readNBytes(HEADER_LENGTH);
+      return detect(header, header.length);
+    }
+  }
+
+  /**
+   * Detects the type from the start of a stream supporting mark/reset and rewinds it afterwards,
+   * so the whole stream can still be consumed.
+   */
+  public static Optional<ImageType> detect(InputStream in) throws IOException {
+    in.mark(HEADER_LENGTH);
+    byte[] header = in.readNBytes(HEADER_LENGTH);
+    in.reset();
+    return detect(header, header.length);
+  }
+
+  private static boolean startsWith(byte[] header, int length, byte[] signature) {
+    return length >= signature.length
+        && Arrays.equals(header, 0, signature.length, signature, 0, signature.length);
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.storage;
+
+import jakarta.annotation.PreDestroy;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Downscaled JPEG variants of stored images.
+ * <p>
+ * Variants are stored next to the original as {@code <original>.w<width>.jpg}. They are created in
+ * the background when an image is stored, and on demand for images stored before. Originals that
+ * are not wider than the requested variant, or cannot be rasterized (SVG), are served as they are.
+ */
+@Service
+public class ImageVariantService {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(ImageVariantService.class);
+
+  private final List<Integer> widths;
+  private final float quality;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(
+      new CustomizableThreadFactory("ImageVariants-"));
+
+  public ImageVariantService(
+      @Value("${talkforgeai.images.variant-widths:128,512}") List<Integer> widths,
+      @Value("${talkforgeai.images.variant-quality:0.8}") float quality) {
+    this.widths = widths.stream().sorted().toList();
+    this.quality = quality;
+  }
+
+  /**
+   * Creates all variants of a newly stored image in the background.
+   */
+  public void createVariantsAsync(Path original) {
+    executor.execute(() -> {
+      for (int width : widths) {
+        try {
+          variant(original, width);
+        } catch (IOException | RuntimeException e) {
+          LOGGER.warn("Could not create {}px variant of {}.", width, original, e);
+          return;
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the smallest variant at least as wide as requested, or the original if there is none.
+   */
+  public Path resolve(Path original, int requestedWidth) {
+    for (int width : widths) {
+      if (width >= requestedWidth) {
+        try {
+          return variant(original, width);
+        } catch (IOException | RuntimeException e) {
+          LOGGER.warn("Could not create {}px variant of {}.", width, original, e);
+          return original;
+        }
+      }
+    }
+    return original;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private Path variant(Path original, int width) throws IOException {
+    Path target = original.resolveSibling(original.getFileName() + ".w" + width + ".jpg");
+    if (Files.exists(target)) {
+      return target;
+    }
+
+    if (ImageType.detect(original).filter(type -> type != ImageType.SVG).isEmpty()
+        || imageWidth(original) <= width) {
+      return original;
+    }
+
+    BufferedImage image = ImageIO.read(original.toFile());
+    if (image == null) {
+      return original;
+    }
+
+    Path temp = Files.createTempFile(original.getParent(), original.getFileName().toString(),
+        ".tmp");
+    try {
+      writeJpeg(scale(image, width), temp);
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+
+    LOGGER.debug("Created {}px variant of {}.", width, original);
+    return target;
+  }
+
+  private int imageWidth(Path file) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext()) {
+        return 0;
+      }
+
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        return reader.getWidth(0);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Scales down in steps of at most half the size, which looks much better than a single bilinear
+   * step, and flattens transparency onto white.
+   */
+  private BufferedImage scale(BufferedImage image, int width) {
+    int height = Math.max(1, Math.round(image.getHeight() * (float) width / image.getWidth()));
+    BufferedImage current = image;
+
+    do {
+      int stepWidth = Math.max(width, current.getWidth() / 2);
+      int stepHeight = Math.max(height, current.getHeight() / 2);
+
+      BufferedImage next = new BufferedImage(stepWidth, stepHeight, BufferedImage.TYPE_INT_RGB);
+      Graphics2D graphics = next.createGraphics();
+      try {
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, stepWidth, stepHeight);
+        graphics.drawImage(current, 0, 0, stepWidth, stepHeight, null);
+      } finally {
+        graphics.dispose();
+      }
+      current = next;
+    } while (current.getWidth() > width);
+
+    return current;
+  }
+
+  private void writeJpeg(BufferedImage image, Path target) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ImageWriteParam param = writer.getDefaultWriteParam();
+    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+    param.setCompressionQuality(quality);
+
+    try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+      writer.setOutput(out);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+import com.talkforgeai.backend.storage.ImageVariantService;
+import com.talkforgeai.backend.transformers.dto.TransformerContext;
+import com.talkforgeai.service.openai.image.OpenAIImageService;
+import com.talkforgeai.service.openai.image.dto.OpenAIImageRequest;
+import com.talkforgeai.service.openai.image.dto.OpenAIImageResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import net.sourceforge.plantuml.FileFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the image files for PlantUML diagrams and image prompts of a message.
+ */
+@Component
+public class ArtifactRenderer {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(ArtifactRenderer.class);
+
+  private final PlantUmlRenderCache plantUmlRenderCache;
+  private final OpenAIImageService imageService;
+  private final ImageVariantService imageVariantService;
+
+  public ArtifactRenderer(PlantUmlRenderCache plantUmlRenderCache,
+      OpenAIImageService imageService, ImageVariantService imageVariantService) {
+    this.plantUmlRenderCache = plantUmlRenderCache;
+    this.imageService = imageService;
+    this.imageVariantService = imageVariantService;
+  }
+
+  /**
+   * Renders a PlantUML diagram in the format of the context and returns its image URL.
+   */
+  public String renderPlantUml(String code, TransformerContext context) {
+    FileFormat format = context.plantUmlFormat();
+    String fileName = UUID.randomUUID() + "_plantuml" + format.getFileSuffix();
+    Path localFilePath = messageDirectory(context).resolve(fileName);
+
+    plantUmlRenderCache.render(code, format, localFilePath);
+
+    return "/api/v1/session/" + context.threadId() + "/" + fileName;
+  }
+
+  /**
+   * Generates an image for the prompt, downloads it and returns its image URL.
+   */
+  public String generateImage(String prompt, TransformerContext context) {
+    OpenAIImageResponse imageResult = imageService.submit(new OpenAIImageRequest(prompt));
+    String imageUrl = imageResult.data().get(0).url();
+
+    String fileName = UUID.randomUUID() + "_image.png";
+    Path localFilePath = messageDirectory(context).resolve(fileName);
+
+    LOGGER.info("Downloading image {}...", imageUrl);
+
+    try {
+      imageService.download(imageUrl, localFilePath);
+    } catch (IOException e) {
+      LOGGER.error("Failed to download image: {}", imageUrl);
+      throw new UncheckedIOException(e);
+    }
+
+    imageVariantService.createVariantsAsync(localFilePath);
+
+    return "/api/v1/session/" + context.messageId() + "/" + fileName;
+  }
+
+  private Path messageDirectory(TransformerContext context) {
+    Path directory = context.threadDirectory().resolve(context.messageId());
+
+    try {
+      Files.createDirectories(directory);
+      if (!Files.isWritable(directory)) {
+        throw new IOException("Directory is not writable: " + directory);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return directory;
+  }
+}
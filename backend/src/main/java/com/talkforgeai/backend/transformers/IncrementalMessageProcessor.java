@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+import com.talkforgeai.backend.transformers.dto.TransformerContext;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatMessage;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transforms a message to HTML while it is being streamed.
+ * <p>
+ * Text is buffered until a region is final: a fenced block once its closing fence arrived, or text
+ * up to a blank line outside of fences and image prompts. Final regions are transformed once and
+ * removed from the buffer, so each delta is only scanned once and emitted text is never
+ * transformed again. Regions are cut where {@link MessageTokenizer} would not see a difference,
+ * and line breaks are carried over between regions, so the concatenated output equals
+ * {@link MessageProcessor#transform} of the complete message.
+ * <p>
+ * Instances belong to a single message and are not thread-safe.
+ */
+public class IncrementalMessageProcessor {
+
+  private static final String FENCE = "```";
+  private static final String BLANK_LINE = "\n\n";
+  private static final String IMAGE_PROMPT_START = "<image-prompt>";
+  private static final String IMAGE_PROMPT_END = "</image-prompt>";
+
+  private final MessageProcessor messageProcessor;
+  private final TransformerContext context;
+  private final MessageRenderer renderer = MessageRenderer.incremental();
+  private final StringBuilder pending = new StringBuilder();
+  private final StringBuilder html = new StringBuilder();
+
+  /**
+   * Position in {@link #pending} up to which the text has been scanned.
+   */
+  private int scanned;
+
+  /**
+   * Start of a fence whose info line has not been terminated yet, or -1.
+   */
+  private int fence = -1;
+
+  /**
+   * Start of the code of a fenced block that has not been closed yet, or -1.
+   */
+  private int code = -1;
+
+  /**
+   * Start of an image prompt that has not been closed yet, or -1.
+   */
+  private int imagePrompt = -1;
+
+  /**
+   * Fences starting before this position have already been ruled out as block starts.
+   */
+  private int fenceFloor;
+
+  IncrementalMessageProcessor(MessageProcessor messageProcessor, TransformerContext context) {
+    this.messageProcessor = messageProcessor;
+    this.context = context;
+  }
+
+  /**
+   * Appends the content delta of a streamed chat completion chunk.
+   */
+  public List<String> append(OpenAIChatStreamResponse chunk) {
+    if (chunk.choices() == null || chunk.choices().isEmpty()) {
+      return List.of();
+    }
+    OpenAIChatMessage delta = chunk.choices().get(0).delta();
+    return append(delta != null ? delta.content() : null);
+  }
+
+  /**
+   * Appends text to the message and returns the HTML of the regions it completed, if any.
+   */
+  public List<String> append(String delta) {
+    if (delta == null || delta.isEmpty()) {
+      return List.of();
+    }
+    pending.append(delta);
+
+    List<String> fragments = new ArrayList<>();
+    int cut;
+    while ((cut = nextCut()) > 0) {
+      String fragment = render(pending.substring(0, cut));
+      pending.delete(0, cut);
+      scanned -= cut;
+      fenceFloor = Math.max(0, fenceFloor - cut);
+      if (!fragment.isEmpty()) {
+        fragments.add(fragment);
+      }
+    }
+    return fragments;
+  }
+
+  /**
+   * Transforms whatever is still buffered, since the message is complete, and returns the
+   * remaining HTML.
+   */
+  public String finish() {
+    String fragment = render(pending.toString());
+    String lineBreaks = renderer.finish();
+    html.append(lineBreaks);
+    pending.setLength(0);
+    scanned = 0;
+    fence = -1;
+    code = -1;
+    imagePrompt = -1;
+    fenceFloor = 0;
+    return fragment + lineBreaks;
+  }
+
+  /**
+   * Returns the HTML emitted so far.
+   */
+  public String html() {
+    return html.toString();
+  }
+
+  /**
+   * Returns the text that has not been transformed yet.
+   */
+  public String pendingText() {
+    return pending.toString();
+  }
+
+  private String render(String region) {
+    if (region.isEmpty()) {
+      return "";
+    }
+    List<MessageToken> tokens = MessageTokenizer.tokenize(region);
+    String fragment = renderer.append(tokens,
+        messageProcessor.renderArtifacts(tokens, context));
+    html.append(fragment);
+    return fragment;
+  }
+
+  /**
+   * Continues scanning the buffer and returns the end of the next final region, or -1 if the
+   * buffered text does not complete one yet.
+   */
+  private int nextCut() {
+    while (scanned < pending.length()) {
+      int end = scanned + 1;
+      char c = pending.charAt(scanned);
+
+      if (code >= 0) {
+        if (endsWith(end, FENCE) && end - FENCE.length() >= code) {
+          code = -1;
+          imagePrompt = -1;
+          scanned = end;
+          return end;
+        }
+      } else if (fence >= 0) {
+        if (c == '\n') {
+          code = end;
+          fence = -1;
+        } else if (isLineTerminator(c)) {
+          // Not a block, the text after the fence start is scanned again.
+          fenceFloor = fence + 1;
+          scanned = fence + 1;
+          fence = -1;
+          continue;
+        }
+      } else if (endsWith(end, FENCE) && end - FENCE.length() >= fenceFloor) {
+        fence = end - FENCE.length();
+      } else if (imagePrompt < 0) {
+        if (endsWith(end, IMAGE_PROMPT_START)) {
+          imagePrompt = end - IMAGE_PROMPT_START.length();
+        } else if (endsWith(end, BLANK_LINE)) {
+          scanned = end;
+          return end;
+        }
+      } else if (endsWith(end, IMAGE_PROMPT_END)
+          && end - IMAGE_PROMPT_END.length() >= imagePrompt + IMAGE_PROMPT_START.length()) {
+        imagePrompt = -1;
+      }
+
+      scanned = end;
+    }
+    return -1;
+  }
+
+  private boolean endsWith(int end, String token) {
+    int start = end - token.length();
+    if (start < 0) {
+      return false;
+    }
+    for (int i = 0; i < token.length(); i++) {
+      if (pending.charAt(start + i) != token.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Same line terminators as {@link MessageTokenizer}.
+   */
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+}
@@ -17,55 +17,141 @@
 package com.talkforgeai.backend.transformers;
 
 import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.backend.transformers.MessageToken.ImagePrompt;
+import com.talkforgeai.backend.transformers.MessageToken.PlantUml;
 import com.talkforgeai.backend.transformers.dto.TransformerContext;
-import com.talkforgeai.service.openai.image.OpenAIImageService;
-import com.talkforgeai.service.plantuml.PlantUMLService;
-import java.util.ArrayList;
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import net.sourceforge.plantuml.FileFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+/**
+ * Transforms assistant messages to HTML.
+ * <p>
+ * All artifacts of a message (PlantUML diagrams, generated images) are discovered first and
+ * rendered concurrently on a bounded pool before the HTML is assembled.
+ */
 @Component
 public class MessageProcessor {
 
   private final FileStorageService fileStorageService;
 
+  private final ArtifactRenderer artifactRenderer;
+
+  private final ExecutorService artifactExecutor;
+
   Logger logger = LoggerFactory.getLogger(MessageProcessor.class);
-  List<Transformer> transformers = new ArrayList<>();
 
-  public MessageProcessor(OpenAIImageService imageService, FileStorageService fileStorageService,
-      PlantUMLService plantUMLService) {
+  public MessageProcessor(FileStorageService fileStorageService,
+      ArtifactRenderer artifactRenderer,
+      @Value("${talkforgeai.artifacts.render-threads:4}") int renderThreads) {
     this.fileStorageService = fileStorageService;
-
-    transformers.add(new LaTeXTransformer());
-    transformers.add(new PlantUMLTransformer(plantUMLService));
-    transformers.add(new CodeBlockTransformer());
-    transformers.add(new NewLineTransformer());
-    transformers.add(new ImageDownloadTransformer(imageService));
+    this.artifactRenderer = artifactRenderer;
+    this.artifactExecutor = Executors.newFixedThreadPool(renderThreads,
+        new CustomizableThreadFactory("ArtifactRenderer-"));
   }
 
   public String transform(String content, String threadId, String messageId) {
+    return transform(content, threadId, messageId, FileFormat.PNG);
+  }
+
+  public String transform(String content, String threadId, String messageId,
+      FileFormat plantUmlFormat) {
     if (content == null || content.isEmpty()) {
       return "";
     }
 
-    String processedContent = content;
+    TransformerContext context = context(threadId, messageId, plantUmlFormat);
+    List<MessageToken> tokens = MessageTokenizer.tokenize(content);
+    String processedContent = MessageRenderer.render(tokens, renderArtifacts(tokens, context));
+
+    logger.info("Transformation done.");
+    return processedContent;
+  }
+
+  /**
+   * Starts transforming a message that is still being generated. See
+   * {@link IncrementalMessageProcessor}.
+   */
+  public IncrementalMessageProcessor incremental(String threadId, String messageId,
+      FileFormat plantUmlFormat) {
+    return new IncrementalMessageProcessor(this, context(threadId, messageId, plantUmlFormat));
+  }
 
-    TransformerContext context = new TransformerContext(
+  private TransformerContext context(String threadId, String messageId,
+      FileFormat plantUmlFormat) {
+    return new TransformerContext(
         threadId,
         messageId,
         fileStorageService.getAssistantsDirectory(),
-        fileStorageService.getThreadDirectory()
+        fileStorageService.getThreadDirectory(),
+        plantUmlFormat
     );
+  }
+
+  /**
+   * Starts rendering each distinct artifact once and waits until all of them are done.
+   */
+  ArtifactResolver renderArtifacts(List<MessageToken> tokens,
+      TransformerContext context) {
+    Map<String, CompletableFuture<String>> plantUmlUrls = new HashMap<>();
+    Map<String, CompletableFuture<String>> imageUrls = new HashMap<>();
 
-    for (Transformer t : transformers) {
-      logger.info("Transforming with " + t.getClass().getName() + "...");
-      processedContent = t.process(processedContent, context);
+    for (MessageToken token : tokens) {
+      if (token instanceof PlantUml plantUml) {
+        plantUmlUrls.computeIfAbsent(plantUml.code(), code -> CompletableFuture.supplyAsync(
+            () -> artifactRenderer.renderPlantUml(code, context), artifactExecutor));
+      } else if (token instanceof ImagePrompt imagePrompt) {
+        imageUrls.computeIfAbsent(MessageRenderer.convertNewLines(imagePrompt.prompt()),
+            prompt -> CompletableFuture.supplyAsync(
+                () -> artifactRenderer.generateImage(prompt, context), artifactExecutor));
+      }
     }
 
-    logger.info("Transformation done.");
-    return processedContent;
+    if (!plantUmlUrls.isEmpty() || !imageUrls.isEmpty()) {
+      logger.info("Rendering {} diagrams and {} images...", plantUmlUrls.size(), imageUrls.size());
+      awaitAll(Stream.concat(plantUmlUrls.values().stream(), imageUrls.values().stream())
+          .toArray(CompletableFuture[]::new));
+    }
+
+    return new ArtifactResolver() {
+      @Override
+      public String plantUmlImageUrl(String code) {
+        return plantUmlUrls.get(code).join();
+      }
+
+      @Override
+      public String imageUrl(String prompt) {
+        return imageUrls.get(prompt).join();
+      }
+    };
+  }
+
+  private void awaitAll(CompletableFuture<?>[] futures) {
+    try {
+      CompletableFuture.allOf(futures).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    artifactExecutor.shutdownNow();
   }
 
 }
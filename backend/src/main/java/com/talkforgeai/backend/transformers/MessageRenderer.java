@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+import com.talkforgeai.backend.transformers.MessageToken.CodeBlock;
+import com.talkforgeai.backend.transformers.MessageToken.ImagePrompt;
+import com.talkforgeai.backend.transformers.MessageToken.LaTeX;
+import com.talkforgeai.backend.transformers.MessageToken.PlantUml;
+import com.talkforgeai.backend.transformers.MessageToken.Text;
+import java.util.List;
+
+/**
+ * Renders {@link MessageToken}s to HTML into a single buffer.
+ * <p>
+ * Text line breaks become {@code <p/>} (pairs) and {@code <br/>} (single). The line break that
+ * closes a block template counts towards the line breaks of the following text, whereas image
+ * cards are emitted after line break conversion, exactly as the former transformer chain did.
+ */
+public final class MessageRenderer {
+
+  /**
+   * Marks HTML blocks whose line breaks the frontend keeps as they are.
+   */
+  static final String NO_LB_MARKER_START = "<!-- start no-lb -->";
+  static final String NO_LB_MARKER_END = "<!-- end no-lb -->";
+
+  private static final String IMAGE_CARD_START = """
+
+      <div class="card shadow">
+        <div class="card-body">
+          <img src='""";
+
+  private static final String IMAGE_CARD_END = """
+      '>
+        </div>
+      </div>
+      """;
+
+  private final StringBuilder out;
+  private int pendingNewLines;
+
+  private MessageRenderer(int capacity) {
+    this.out = new StringBuilder(capacity);
+  }
+
+  public static String render(List<MessageToken> tokens, ArtifactResolver resolver) {
+    int capacity = 0;
+    for (MessageToken token : tokens) {
+      capacity += token instanceof Text text ? text.content().length() : 256;
+    }
+
+    MessageRenderer renderer = new MessageRenderer(capacity);
+    for (MessageToken token : tokens) {
+      renderer.render(token, resolver);
+    }
+    renderer.flushNewLines();
+    return renderer.out.toString();
+  }
+
+  /**
+   * Returns a renderer for a message that arrives in parts, see {@link #append}.
+   */
+  static MessageRenderer incremental() {
+    return new MessageRenderer(256);
+  }
+
+  /**
+   * Renders the next tokens of the message and returns only the HTML they produce. Trailing line
+   * breaks are held back, since their rendering depends on what follows; {@link #finish()} emits
+   * them. The concatenated output equals {@link #render} of all tokens.
+   */
+  String append(List<MessageToken> tokens, ArtifactResolver resolver) {
+    out.setLength(0);
+    for (MessageToken token : tokens) {
+      render(token, resolver);
+    }
+    return out.toString();
+  }
+
+  String finish() {
+    out.setLength(0);
+    flushNewLines();
+    return out.toString();
+  }
+
+  static String convertNewLines(String text) {
+    MessageRenderer renderer = new MessageRenderer(text.length() + 16);
+    renderer.text(text);
+    renderer.flushNewLines();
+    return renderer.out.toString();
+  }
+
+  private static String escapeHtml(String input) {
+    return input.replace("<", "&lt;")
+        .replace(">", "&gt;")
+        .replace("'", "&apos;")
+        .replace("\"", "&quot;");
+  }
+
+  private void render(MessageToken token, ArtifactResolver resolver) {
+    switch (token) {
+      case Text text -> text(text.content());
+      case LaTeX latex -> {
+        startBlock();
+        out.append("\n<tf-latex latex='").append(latex.code()).append("'></tf-latex>\n");
+        endBlock();
+      }
+      case PlantUml plantUml -> {
+        startBlock();
+        appendImageCard(resolver.plantUmlImageUrl(plantUml.code()), plantUml.code());
+        endBlock();
+      }
+      case CodeBlock codeBlock -> {
+        startBlock();
+        out.append("\n<pre>\n  <code ");
+        if (!codeBlock.lang().isEmpty()) {
+          out.append("class=\"language-").append(codeBlock.lang()).append('"');
+        }
+        out.append('>').append(codeBlock.code()).append("</code>\n</pre>\n");
+        endBlock();
+      }
+      case ImagePrompt imagePrompt -> {
+        String prompt = convertNewLines(imagePrompt.prompt());
+        startBlock();
+        appendImageCard(resolver.imageUrl(prompt), escapeHtml(prompt));
+        out.append(NO_LB_MARKER_END).append('\n');
+      }
+    }
+  }
+
+  private void appendImageCard(String src, String title) {
+    out.append(IMAGE_CARD_START).append(src).append("' title='").append(title)
+        .append(IMAGE_CARD_END);
+  }
+
+  private void startBlock() {
+    flushNewLines();
+    out.append(NO_LB_MARKER_START);
+  }
+
+  /**
+   * Closes a block. Its trailing line break is merged with the line breaks of the following text.
+   */
+  private void endBlock() {
+    out.append(NO_LB_MARKER_END);
+    pendingNewLines = 1;
+  }
+
+  private void text(String text) {
+    int start = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') {
+        if (i > start) {
+          flushNewLines();
+          out.append(text, start, i);
+        }
+        pendingNewLines++;
+        start = i + 1;
+      }
+    }
+
+    if (start < text.length()) {
+      flushNewLines();
+      out.append(text, start, text.length());
+    }
+  }
+
+  private void flushNewLines() {
+    for (; pendingNewLines >= 2; pendingNewLines -= 2) {
+      out.append("<p/>");
+    }
+    if (pendingNewLines == 1) {
+      out.append("<br/>");
+    }
+    pendingNewLines = 0;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+/**
+ * A segment of an assistant message as identified by {@link MessageTokenizer}.
+ */
+public sealed interface MessageToken {
+
+  /**
+   * Plain text. Line breaks are converted to HTML when rendered.
+   */
+  record Text(String content) implements MessageToken {
+
+  }
+
+  /**
+   * A fenced {@code latex} block.
+   */
+  record LaTeX(String code) implements MessageToken {
+
+  }
+
+  /**
+   * A fenced block whose body starts with {@code @startuml}. The code includes that line.
+   */
+  record PlantUml(String lang, String code) implements MessageToken {
+
+  }
+
+  /**
+   * Any other fenced code block.
+   */
+  record CodeBlock(String lang, String code) implements MessageToken {
+
+  }
+
+  /**
+   * An {@code <image-prompt>} tag. The prompt is the raw tag content.
+   */
+  record ImagePrompt(String prompt) implements MessageToken {
+
+  }
+}
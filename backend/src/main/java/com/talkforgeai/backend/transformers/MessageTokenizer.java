@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+import com.talkforgeai.backend.transformers.MessageToken.CodeBlock;
+import com.talkforgeai.backend.transformers.MessageToken.ImagePrompt;
+import com.talkforgeai.backend.transformers.MessageToken.LaTeX;
+import com.talkforgeai.backend.transformers.MessageToken.PlantUml;
+import com.talkforgeai.backend.transformers.MessageToken.Text;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an assistant message into {@link MessageToken}s in a single scan.
+ * <p>
+ * Matching follows the former regex transformers: at each fence, a {@code latex} block is tried
+ * first, then a PlantUML block, then a plain code block. A fence is closed by the next
+ * {@code ```}; fences without a closing counterpart stay literal text. Image prompts are only
+ * recognized within text outside of fenced blocks.
+ * <p>
+ * The result differs from the former chain in two cases:
+ * <ul>
+ *   <li>An {@code <image-prompt>} inside a fenced block stays part of the code. The former chain
+ *   generated an image for it and replaced it within the code block, so code showing the tag
+ *   could not be displayed.</li>
+ *   <li>Malformed fences, e.g. a closing fence followed by another fence on the same line.</li>
+ * </ul>
+ */
+public final class MessageTokenizer {
+
+  private static final String FENCE = "```";
+  private static final String LATEX_FENCE = "```latex\n";
+  private static final String START_UML = "@startuml\n";
+  private static final String IMAGE_PROMPT_START = "<image-prompt>";
+  private static final String IMAGE_PROMPT_END = "</image-prompt>";
+
+  private final String content;
+  private final List<MessageToken> tokens = new ArrayList<>();
+  private int nextImagePrompt = -1;
+
+  private MessageTokenizer(String content) {
+    this.content = content;
+  }
+
+  public static List<MessageToken> tokenize(String content) {
+    return new MessageTokenizer(content).tokenize();
+  }
+
+  private List<MessageToken> tokenize() {
+    int lastFence = content.lastIndexOf(FENCE);
+    int textStart = 0;
+    int pos = content.indexOf(FENCE);
+
+    // A block needs a closing fence, so nothing can match at or after the last one.
+    while (pos >= 0 && pos < lastFence) {
+      Block block = matchBlock(pos);
+      if (block == null) {
+        pos = content.indexOf(FENCE, pos + 1);
+        continue;
+      }
+
+      addText(textStart, pos);
+      tokens.add(block.token());
+      textStart = block.end();
+      pos = content.indexOf(FENCE, textStart);
+    }
+
+    addText(textStart, content.length());
+    return tokens;
+  }
+
+  private Block matchBlock(int pos) {
+    if (content.startsWith(LATEX_FENCE, pos)) {
+      int codeStart = pos + LATEX_FENCE.length();
+      int close = content.indexOf(FENCE, codeStart);
+      return close < 0 ? null
+          : new Block(new LaTeX(content.substring(codeStart, close)), close + FENCE.length());
+    }
+
+    int infoEnd = lineEnd(pos + FENCE.length());
+    if (infoEnd >= content.length() || content.charAt(infoEnd) != '\n') {
+      return null;
+    }
+
+    String lang = content.substring(pos + FENCE.length(), infoEnd);
+    int codeStart = infoEnd + 1;
+
+    if (content.startsWith(START_UML, codeStart)) {
+      int close = content.indexOf(FENCE, codeStart + START_UML.length());
+      if (close >= 0) {
+        return new Block(new PlantUml(lang, content.substring(codeStart, close)),
+            close + FENCE.length());
+      }
+    }
+
+    int close = content.indexOf(FENCE, codeStart);
+    return close < 0 ? null
+        : new Block(new CodeBlock(lang, content.substring(codeStart, close)),
+            close + FENCE.length());
+  }
+
+  /**
+   * Returns the index of the first line terminator at or after {@code from}, using the same set of
+   * terminators as the regex {@code .} did.
+   */
+  private int lineEnd(int from) {
+    for (int i = from; i < content.length(); i++) {
+      switch (content.charAt(i)) {
+        case '\n', '\r', '\u0085', '\u2028', '\u2029' -> {
+          return i;
+        }
+        default -> {
+        }
+      }
+    }
+    return content.length();
+  }
+
+  private void addText(int from, int to) {
+    int pos = from;
+
+    while (pos < to) {
+      if (nextImagePrompt < pos) {
+        int found = content.indexOf(IMAGE_PROMPT_START, pos);
+        nextImagePrompt = found < 0 ? content.length() : found;
+      }
+      if (nextImagePrompt >= to) {
+        break;
+      }
+
+      int promptStart = nextImagePrompt + IMAGE_PROMPT_START.length();
+      int close = content.indexOf(IMAGE_PROMPT_END, promptStart);
+      if (close < 0 || close + IMAGE_PROMPT_END.length() > to) {
+        break;
+      }
+
+      if (nextImagePrompt > pos) {
+        tokens.add(new Text(content.substring(pos, nextImagePrompt)));
+      }
+      tokens.add(new ImagePrompt(content.substring(promptStart, close)));
+      pos = close + IMAGE_PROMPT_END.length();
+    }
+
+    if (pos < to) {
+      tokens.add(new Text(content.substring(pos, to)));
+    }
+  }
+
+  private record Block(MessageToken token, int end) {
+
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+import com.talkforgeai.backend.storage.DiskCacheIndex;
+import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.service.plantuml.PlantUMLService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.stream.Collectors;
+import net.sourceforge.plantuml.FileFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Content-addressed cache of rendered PlantUML diagrams.
+ * <p>
+ * Diagrams are stored under {@code cache/plantuml} in the data directory, keyed by a hash of the
+ * normalized source, file format and scale. Thread directories get a hard link to the cached file
+ * (or a copy where linking is not possible), so evicting a cache entry never breaks a message.
+ * The least recently used entries are evicted once the cache exceeds its maximum size. Cache hits
+ * don't touch the cached file, as its inode is shared with the linked files that are served as
+ * immutable.
+ */
+@Component
+public class PlantUmlRenderCache {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(PlantUmlRenderCache.class);
+
+  private static final Set<FileFormat> FORMATS = Set.of(FileFormat.PNG, FileFormat.SVG);
+
+  private final PlantUMLService plantUMLService;
+  private final FileStorageService fileStorageService;
+  private final long maxSizeBytes;
+  private DiskCacheIndex index;
+
+  public PlantUmlRenderCache(PlantUMLService plantUMLService,
+      FileStorageService fileStorageService,
+      @Value("${talkforgeai.cache.plantuml.max-size:100MB}") DataSize maxSize) {
+    this.plantUMLService = plantUMLService;
+    this.fileStorageService = fileStorageService;
+    this.maxSizeBytes = maxSize.toBytes();
+  }
+
+  static String key(String source, FileFormat format) {
+    String normalized = source.replace("\r\n", "\n")
+        .lines()
+        .map(String::stripTrailing)
+        .collect(Collectors.joining("\n"))
+        .strip();
+
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(normalized.getBytes(StandardCharsets.UTF_8));
+      digest.update(("\n" + format + "\n" + PlantUMLService.SCALE)
+          .getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @PostConstruct
+  void loadIndex() {
+    index = new DiskCacheIndex(
+        fileStorageService.getDataDirectory().resolve("cache").resolve("plantuml"),
+        FORMATS.stream().map(FileFormat::getFileSuffix).collect(Collectors.toSet()),
+        maxSizeBytes);
+
+    try {
+      index.load();
+      LOGGER.info("PlantUML render cache holds {} diagrams ({} bytes).", index.size(),
+          index.totalBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @PreDestroy
+  void saveIndex() {
+    index.save();
+  }
+
+  /**
+   * Provides the rendered diagram for the source at the target path, rendering it only if it is
+   * not cached yet.
+   */
+  public void render(String source, FileFormat format, Path target) {
+    String key = key(source, format);
+    String fileName = key + format.getFileSuffix();
+
+    try {
+      provide(source, format, key, fileName);
+      try {
+        link(index.resolve(fileName), target);
+      } catch (NoSuchFileException e) {
+        // Evicted between the lookup and linking it; the lookup now reports it as missing.
+        LOGGER.debug("Cached diagram {} was evicted before it could be linked.", fileName);
+        provide(source, format, key, fileName);
+        link(index.resolve(fileName), target);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void provide(String source, FileFormat format, String key, String fileName)
+      throws IOException {
+    if (index.contains(fileName)) {
+      LOGGER.debug("PlantUML cache hit for {}.", fileName);
+      return;
+    }
+
+    Path temp = index.createTempFile(key);
+    try {
+      plantUMLService.generateUmlDiagram(source, temp.toString(), format);
+      index.add(fileName, temp);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private void link(Path cached, Path target) throws IOException {
+    Files.deleteIfExists(target);
+    try {
+      Files.createLink(target, cached);
+    } catch (UnsupportedOperationException | FileSystemException e) {
+      Files.copy(cached, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
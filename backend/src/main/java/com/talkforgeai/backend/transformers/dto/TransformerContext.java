@@ -17,9 +17,16 @@
 package com.talkforgeai.backend.transformers.dto;
 
 import java.nio.file.Path;
+import net.sourceforge.plantuml.FileFormat;
 
 public record TransformerContext(String threadId,
                                  String messageId,
                                  Path personaDirectory,
-                                 Path threadDirectory) {
+                                 Path threadDirectory,
+                                 FileFormat plantUmlFormat) {
+
+    public TransformerContext(String threadId, String messageId, Path personaDirectory,
+                              Path threadDirectory) {
+        this(threadId, messageId, personaDirectory, threadDirectory, FileFormat.PNG);
+    }
 }
@@ -20,28 +20,87 @@ import com.talkforgeai.backend.voice.dto.TTSRequest;
 import com.talkforgeai.backend.voice.service.TTSService;
 import com.talkforgeai.service.elevenlabs.dto.ElevenLabsModel;
 import com.talkforgeai.service.elevenlabs.dto.ElevenLabsVoicesResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/tts")
 public class TTSController {
 
+    public static final Logger LOGGER = LoggerFactory.getLogger(TTSController.class);
+
+    private static final String AUDIO_MPEG_VALUE = "audio/mpeg";
+    private static final MediaType AUDIO_MPEG = MediaType.parseMediaType(AUDIO_MPEG_VALUE);
+
     private final TTSService TTSService;
+    private final AsyncTaskExecutor streamExecutor;
+    private final Duration streamTimeout;
 
-    public TTSController(TTSService TTSService) {
+    public TTSController(TTSService TTSService,
+                         @Qualifier("mvcTaskExecutor") AsyncTaskExecutor streamExecutor,
+                         @Value("${talkforgeai.tts.stream-timeout:4m}") Duration streamTimeout) {
         this.TTSService = TTSService;
+        this.streamExecutor = streamExecutor;
+        this.streamTimeout = streamTimeout;
     }
 
+    /**
+     * Passes the audio on to the client chunk by chunk while ElevenLabs is still synthesizing it.
+     * <p>
+     * The response has its own timeout instead of the global async request timeout, which is
+     * shorter than a long synthesis may take. On timeout, or if the client goes away, the upstream
+     * response is closed.
+     */
     @PostMapping(value = "/stream",
             consumes = MediaType.APPLICATION_JSON_VALUE,
-            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public byte[] speak(@RequestBody TTSRequest request) {
+            produces = AUDIO_MPEG_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> speak(@RequestBody TTSRequest request) {
+        InputStream audio = TTSService.streamElevenLabsVoice(request);
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeout.toMillis());
+        emitter.onTimeout(() -> close(audio));
+        emitter.onError(e -> close(audio));
+        streamExecutor.execute(() -> relay(audio, emitter));
 
+        return ResponseEntity.ok()
+                .contentType(AUDIO_MPEG)
+                .body(emitter);
+    }
+
+    private static void relay(InputStream audio, ResponseBodyEmitter emitter) {
+        try (audio) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = audio.read(buffer)) != -1) {
+                emitter.send(Arrays.copyOf(buffer, read), AUDIO_MPEG);
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, the upstream failed or the response timed out and was closed.
+            LOGGER.debug("Audio stream ended early: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
 
-        return TTSService.streamElevenLabsVoice(request);
+    private static void close(InputStream audio) {
+        try {
+            audio.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close audio stream: {}", e.getMessage());
+        }
     }
 
     @GetMapping(value = "/models")
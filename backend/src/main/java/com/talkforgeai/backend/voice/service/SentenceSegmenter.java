@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.voice.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Splits streamed text into sentences as soon as they are complete.
+ * <p>
+ * A sentence ends at whitespace following {@code .}, {@code !}, {@code ?} or an ellipsis (optionally
+ * followed by a closing quote or bracket), or at a blank line. Requiring the whitespace keeps
+ * numbers like {@code 3.14} together, at the cost of holding a sentence until the next delta
+ * arrives. Sentences shorter than {@link #MIN_LENGTH} are joined with the following one, so short
+ * replies like "Yes." don't cost a synthesis request each.
+ */
+class SentenceSegmenter {
+
+  static final int MIN_LENGTH = 20;
+
+  private final StringBuilder pending = new StringBuilder();
+  private int scanned;
+
+  /**
+   * Adds a text delta and returns the sentences it completed.
+   */
+  List<String> append(String delta) {
+    pending.append(delta);
+
+    List<String> sentences = new ArrayList<>();
+    int start = 0;
+    for (int i = Math.max(scanned, 1); i < pending.length(); i++) {
+      if (isBoundary(i) && i - start >= MIN_LENGTH) {
+        String sentence = pending.substring(start, i).strip();
+        if (!sentence.isEmpty()) {
+          sentences.add(sentence);
+        }
+        start = i;
+      }
+    }
+
+    pending.delete(0, start);
+    scanned = pending.length();
+    return sentences;
+  }
+
+  /**
+   * Returns the remaining text once the stream has ended.
+   */
+  Optional<String> flush() {
+    String rest = pending.toString().strip();
+    pending.setLength(0);
+    scanned = 0;
+    return rest.isEmpty() ? Optional.empty() : Optional.of(rest);
+  }
+
+  private boolean isBoundary(int index) {
+    if (!Character.isWhitespace(pending.charAt(index))) {
+      return false;
+    }
+
+    char previous = pending.charAt(index - 1);
+    if (previous == '\n' && pending.charAt(index) == '\n') {
+      return true;
+    }
+    if (isClosing(previous) && index >= 2) {
+      previous = pending.charAt(index - 2);
+    }
+    return previous == '.' || previous == '!' || previous == '?' || previous == '\u2026';
+  }
+
+  private static boolean isClosing(char c) {
+    return c == '"' || c == '\'' || c == ')' || c == '\u201D' || c == '\u2019' || c == '*' || c == '_';
+  }
+}
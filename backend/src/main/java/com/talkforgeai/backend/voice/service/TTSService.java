@@ -24,33 +24,71 @@ import com.talkforgeai.service.elevenlabs.ElevenLabsService;
 import com.talkforgeai.service.elevenlabs.dto.ElevenLabsModel;
 import com.talkforgeai.service.elevenlabs.dto.ElevenLabsRequest;
 import com.talkforgeai.service.elevenlabs.dto.ElevenLabsVoicesResponse;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 public class TTSService {
 
   private final ElevenLabsService elevenLabsService;
   private final AssistantService assistantService;
+  private final TtsAudioCache ttsAudioCache;
+  private final int sentenceLookahead;
 
-  public TTSService(ElevenLabsService elevenLabsService, AssistantService assistantService) {
+  public TTSService(ElevenLabsService elevenLabsService, AssistantService assistantService,
+      TtsAudioCache ttsAudioCache,
+      @Value("${talkforgeai.tts.sentence-lookahead:2}") int sentenceLookahead) {
     this.assistantService = assistantService;
     this.elevenLabsService = elevenLabsService;
+    this.ttsAudioCache = ttsAudioCache;
+    this.sentenceLookahead = sentenceLookahead;
   }
 
-  public byte[] streamElevenLabsVoice(TTSRequest TTSRequest) {
+  public InputStream streamElevenLabsVoice(TTSRequest TTSRequest) {
     AssistantDto assistantDto = assistantService.retrieveAssistant(TTSRequest.assistantId());
-    Map<String, String> assistantProperties = assistantDto.properties();
 
-    ElevenLabsRequest request = new ElevenLabsRequest(
-        TTSRequest.text(),
+    return ttsAudioCache.stream(elevenLabsRequest(TTSRequest.text(), assistantDto.properties()));
+  }
+
+  /**
+   * Splits streamed text into sentences and synthesizes each one as soon as it is complete. Up to
+   * {@code talkforgeai.tts.sentence-lookahead} sentences are synthesized ahead of the one being
+   * emitted; the audio is emitted in sentence order. Nothing is looked up before subscription, and
+   * all blocking calls run on the bounded elastic scheduler.
+   */
+  public Flux<byte[]> streamSentenceVoice(Flux<String> textDeltas, String assistantId) {
+    return Mono.fromCallable(() -> assistantService.retrieveAssistant(assistantId).properties())
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMapMany(assistantProperties -> {
+          SentenceSegmenter segmenter = new SentenceSegmenter();
+          Flux<String> sentences = textDeltas.concatMapIterable(segmenter::append)
+              .concatWith(Mono.defer(() -> Mono.justOrEmpty(segmenter.flush())));
+
+          return sentences.flatMapSequential(sentence -> Mono.fromCallable(() -> {
+                    try (InputStream audio = ttsAudioCache.stream(
+                        elevenLabsRequest(sentence, assistantProperties))) {
+                      return audio.readAllBytes();
+                    }
+                  })
+                  .subscribeOn(Schedulers.boundedElastic()),
+              sentenceLookahead);
+        });
+  }
+
+  private ElevenLabsRequest elevenLabsRequest(String text,
+      Map<String, String> assistantProperties) {
+    return new ElevenLabsRequest(
+        text,
         assistantProperties.get(AssistantProperties.ELEVENLABS_VOICEID.getKey()),
         assistantProperties.get(AssistantProperties.ELEVENLABS_MODELID.getKey()),
         new ElevenLabsRequest.VoiceSettings()
     );
-
-    return elevenLabsService.stream(request);
   }
 
   public List<ElevenLabsModel> getElevenLabsModels() {
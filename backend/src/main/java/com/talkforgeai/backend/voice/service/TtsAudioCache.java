@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.voice.service;
+
+import com.talkforgeai.backend.storage.DiskCacheIndex;
+import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.service.elevenlabs.ElevenLabsService;
+import com.talkforgeai.service.elevenlabs.dto.ElevenLabsRequest;
+import com.talkforgeai.service.elevenlabs.dto.ElevenLabsRequest.VoiceSettings;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Disk cache of synthesized speech.
+ * <p>
+ * Audio is stored under {@code cache/tts} in the data directory, keyed by a hash of the text, voice,
+ * model and voice settings. On a miss the upstream audio is passed through to the caller and
+ * written to the cache at the same time; it is only added once it has been read completely.
+ * Concurrent requests for the same audio briefly wait for the first one instead of synthesizing it
+ * again. The least recently used entries are evicted once the cache exceeds its maximum size.
+ */
+@Component
+public class TtsAudioCache {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(TtsAudioCache.class);
+
+  private static final String SUFFIX = ".mp3";
+  private static final Duration MAX_WAIT = Duration.ofSeconds(5);
+
+  private final ElevenLabsService elevenLabsService;
+  private final FileStorageService fileStorageService;
+  private final long maxSizeBytes;
+  private final Duration maxWait;
+  private final Map<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+  private DiskCacheIndex index;
+
+  @Autowired
+  public TtsAudioCache(ElevenLabsService elevenLabsService,
+      FileStorageService fileStorageService,
+      @Value("${talkforgeai.cache.tts.max-size:200MB}") DataSize maxSize) {
+    this(elevenLabsService, fileStorageService, maxSize, MAX_WAIT);
+  }
+
+  TtsAudioCache(ElevenLabsService elevenLabsService, FileStorageService fileStorageService,
+      DataSize maxSize, Duration maxWait) {
+    this.elevenLabsService = elevenLabsService;
+    this.fileStorageService = fileStorageService;
+    this.maxSizeBytes = maxSize.toBytes();
+    this.maxWait = maxWait;
+  }
+
+  static String key(ElevenLabsRequest request) {
+    VoiceSettings settings = request.voiceSettings() != null
+        ? request.voiceSettings() : new VoiceSettings();
+
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update((request.voiceId() + "\n" + request.modelId() + "\n" + settings.stability()
+          + "\n" + settings.similarityBoost() + "\n").getBytes(StandardCharsets.UTF_8));
+      digest.update(request.text().getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @PostConstruct
+  void loadIndex() {
+    index = new DiskCacheIndex(
+        fileStorageService.getDataDirectory().resolve("cache").resolve("tts"),
+        Set.of(SUFFIX), maxSizeBytes);
+
+    try {
+      index.load();
+      LOGGER.info("TTS cache holds {} entries ({} bytes).", index.size(), index.totalBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @PreDestroy
+  void saveIndex() {
+    index.save();
+  }
+
+  /**
+   * Returns the audio for the request. ElevenLabs is only called if it is neither cached nor being
+   * synthesized for another request. The caller must close the stream.
+   * <p>
+   * A running synthesis fills the cache at the pace its client reads the audio, so a concurrent
+   * request waits for it only briefly and then synthesizes the audio itself.
+   */
+  public InputStream stream(ElevenLabsRequest request) {
+    String fileName = key(request) + SUFFIX;
+
+    try {
+      InputStream cached = openCached(fileName);
+      if (cached != null) {
+        return cached;
+      }
+
+      CompletableFuture<Boolean> synthesis = new CompletableFuture<>();
+      CompletableFuture<Boolean> running = inFlight.putIfAbsent(fileName, synthesis);
+      if (running != null) {
+        LOGGER.debug("Waiting for running synthesis of {}.", fileName);
+        if (await(running) && (cached = openCached(fileName)) != null) {
+          return cached;
+        }
+        // The other request is too slow, was cancelled or failed, so don't rely on the cache.
+        return elevenLabsService.stream(request);
+      }
+
+      cached = openCached(fileName);
+      if (cached != null) {
+        complete(fileName, synthesis, true);
+        return cached;
+      }
+
+      try {
+        return new CachingInputStream(elevenLabsService.stream(request), fileName, synthesis);
+      } catch (IOException | RuntimeException e) {
+        complete(fileName, synthesis, false);
+        throw e;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Opens the cached audio, or returns {@code null} if it is not cached. An entry evicted between
+   * the lookup and opening the file counts as not cached.
+   */
+  private InputStream openCached(String fileName) throws IOException {
+    if (!index.contains(fileName)) {
+      return null;
+    }
+
+    try {
+      InputStream audio = Files.newInputStream(index.resolve(fileName));
+      LOGGER.debug("TTS cache hit for {}.", fileName);
+      return audio;
+    } catch (NoSuchFileException e) {
+      LOGGER.debug("Cached audio {} was evicted before it could be opened.", fileName);
+      index.remove(fileName);
+      return null;
+    }
+  }
+
+  private boolean await(CompletableFuture<Boolean> running) {
+    try {
+      return running.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private void complete(String fileName, CompletableFuture<Boolean> synthesis, boolean cached) {
+    inFlight.remove(fileName, synthesis);
+    synthesis.complete(cached);
+  }
+
+  /**
+   * Passes the upstream audio through and copies it into a temporary file, which becomes the cache
+   * entry once the end of the audio is reached. Closing the stream before that discards it.
+   */
+  private class CachingInputStream extends FilterInputStream {
+
+    private final String fileName;
+    private final CompletableFuture<Boolean> synthesis;
+    private final Path temp;
+    private final OutputStream out;
+    private boolean done;
+
+    CachingInputStream(InputStream upstream, String fileName,
+        CompletableFuture<Boolean> synthesis) throws IOException {
+      super(upstream);
+      this.fileName = fileName;
+      this.synthesis = synthesis;
+      this.temp = index.createTempFile(fileName);
+      this.out = Files.newOutputStream(temp);
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      try {
+        int read = in.read(buffer, offset, length);
+        if (read == -1) {
+          finish(true);
+        } else if (!done) {
+          out.write(buffer, offset, read);
+        }
+        return read;
+      } catch (IOException e) {
+        finish(false);
+        throw e;
+      }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      // Skipped audio still has to end up in the cache.
+      byte[] buffer = new byte[(int) Math.min(n, 8192)];
+      long skipped = 0;
+      int read;
+      while (skipped < n
+          && (read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped))) != -1) {
+        skipped += read;
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        finish(false);
+      } finally {
+        in.close();
+      }
+    }
+
+    private void finish(boolean complete) throws IOException {
+      if (done) {
+        return;
+      }
+      done = true;
+
+      boolean cached = false;
+      try {
+        out.close();
+        if (complete) {
+          index.add(fileName, temp);
+          cached = true;
+        }
+      } finally {
+        Files.deleteIfExists(temp);
+        complete(fileName, synthesis, cached);
+      }
+    }
+  }
+}
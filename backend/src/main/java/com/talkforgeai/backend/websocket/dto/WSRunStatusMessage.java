@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.websocket.dto;
+
+import com.talkforgeai.service.openai.assistant.dto.Run;
+
+public class WSRunStatusMessage extends WebsocketMessage {
+
+  private final Run run;
+
+  public WSRunStatusMessage(Run run) {
+    this(run, WebsocketMessageType.RUN_STATUS);
+  }
+
+  private WSRunStatusMessage(Run run, WebsocketMessageType type) {
+    super(null, type);
+    this.run = run;
+  }
+
+  /**
+   * Tells subscribers that the run is no longer polled, although it did not reach a final status.
+   * The run is its last known state.
+   */
+  public static WSRunStatusMessage trackingStopped(Run run) {
+    return new WSRunStatusMessage(run, WebsocketMessageType.RUN_TRACKING_STOPPED);
+  }
+
+  public Run getRun() {
+    return run;
+  }
+}
@@ -19,5 +19,7 @@ package com.talkforgeai.backend.websocket.dto;
 public enum WebsocketMessageType {
     STATUS,
     RESPONSE,
-    FUNCTION_CALL
+    FUNCTION_CALL,
+    RUN_STATUS,
+    RUN_TRACKING_STOPPED
 }
@@ -17,8 +17,8 @@
 package com.talkforgeai.backend.websocket.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.talkforgeai.backend.websocket.dto.WebsocketMessage;
+import com.talkforgeai.service.json.JsonCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -27,18 +27,23 @@ import org.springframework.stereotype.Service;
 @Service
 public class WebSocketService {
     private final SimpMessagingTemplate template;
+    private final JsonCodec jsonCodec;
     Logger logger = LoggerFactory.getLogger(WebSocketService.class);
 
 
-    public WebSocketService(SimpMessagingTemplate template) {
+    public WebSocketService(SimpMessagingTemplate template, JsonCodec jsonCodec) {
         this.template = template;
+        this.jsonCodec = jsonCodec;
     }
 
     public void sendMessage(WebsocketMessage message) {
+        sendMessage("/topic/messages", message);
+    }
+
+    public void sendMessage(String destination, WebsocketMessage message) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            logger.info("Sending delta over websocket: {}", message);
-            this.template.convertAndSend("/topic/messages", mapper.writeValueAsString(message));
+            logger.info("Sending delta over websocket to {}: {}", destination, message);
+            this.template.convertAndSend(destination, jsonCodec.write(message));
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
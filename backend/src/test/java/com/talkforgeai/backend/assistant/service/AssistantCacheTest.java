@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.service.openai.assistant.OpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.dto.ApiError.ApiErrorBody;
+import com.talkforgeai.service.openai.assistant.dto.Assistant;
+import com.talkforgeai.service.openai.exception.OpenAIException;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+
+class AssistantCacheTest {
+
+  static final Duration TTL = Duration.ofMinutes(5);
+
+  OpenAIAssistantService openAIAssistantService;
+  List<Runnable> revalidations;
+  Instant now;
+  AssistantCache assistantCache;
+
+  @BeforeEach
+  void before() {
+    openAIAssistantService = Mockito.mock(OpenAIAssistantService.class);
+    revalidations = new ArrayList<>();
+    now = Instant.parse("2024-01-01T00:00:00Z");
+
+    ExecutorService executor = Mockito.mock(ExecutorService.class);
+    doAnswer(invocation -> revalidations.add(invocation.getArgument(0)))
+        .when(executor).execute(any(Runnable.class));
+    Clock clock = Mockito.mock(Clock.class);
+    when(clock.instant()).thenAnswer(invocation -> now);
+
+    assistantCache = new AssistantCache(openAIAssistantService, TTL, 2, clock, executor);
+  }
+
+  @Test
+  void loadsUnknownAssistantOnce() {
+    when(openAIAssistantService.retrieveAssistant("asst_1")).thenReturn(assistant("v1"));
+
+    assertEquals("v1", assistantCache.get("asst_1").name());
+    assertEquals("v1", assistantCache.get("asst_1").name());
+
+    verify(openAIAssistantService, times(1)).retrieveAssistant("asst_1");
+    assertTrue(revalidations.isEmpty());
+  }
+
+  @Test
+  void servesStaleEntryWhileRevalidating() {
+    when(openAIAssistantService.retrieveAssistant("asst_1"))
+        .thenReturn(assistant("v1"), assistant("v2"));
+    assistantCache.get("asst_1");
+
+    now = now.plus(TTL).plusSeconds(1);
+
+    assertEquals("v1", assistantCache.get("asst_1").name());
+    assertEquals("v1", assistantCache.get("asst_1").name());
+    assertEquals(1, revalidations.size(), "only one revalidation per entry at a time");
+    verify(openAIAssistantService, times(1)).retrieveAssistant("asst_1");
+
+    revalidations.remove(0).run();
+
+    assertEquals("v2", assistantCache.get("asst_1").name());
+    assertTrue(revalidations.isEmpty(), "revalidated entry is fresh again");
+  }
+
+  @Test
+  void evictsEntryWhenAssistantIsGone() {
+    when(openAIAssistantService.retrieveAssistant("asst_1"))
+        .thenReturn(assistant("v1"))
+        .thenThrow(failure(404))
+        .thenReturn(assistant("v3"));
+    assistantCache.get("asst_1");
+    now = now.plus(TTL).plusSeconds(1);
+    assistantCache.get("asst_1");
+
+    revalidations.remove(0).run();
+
+    assertEquals("v3", assistantCache.get("asst_1").name());
+    verify(openAIAssistantService, times(3)).retrieveAssistant("asst_1");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {429, 500, 503})
+  void keepsStaleEntryOnTransientErrors(int statusCode) {
+    when(openAIAssistantService.retrieveAssistant("asst_1"))
+        .thenReturn(assistant("v1"))
+        .thenThrow(failure(statusCode));
+    assistantCache.get("asst_1");
+    now = now.plus(TTL).plusSeconds(1);
+    assistantCache.get("asst_1");
+
+    revalidations.remove(0).run();
+
+    assertEquals("v1", assistantCache.get("asst_1").name());
+    verify(openAIAssistantService, times(2)).retrieveAssistant("asst_1");
+  }
+
+  @Test
+  void keepsStaleEntryOnNetworkFailure() {
+    when(openAIAssistantService.retrieveAssistant("asst_1"))
+        .thenReturn(assistant("v1"))
+        .thenThrow(new OpenAIException("Message creation failed.", new IOException("reset")));
+    assistantCache.get("asst_1");
+    now = now.plus(TTL).plusSeconds(1);
+    assistantCache.get("asst_1");
+
+    revalidations.remove(0).run();
+
+    assertEquals("v1", assistantCache.get("asst_1").name());
+    verify(openAIAssistantService, times(2)).retrieveAssistant("asst_1");
+  }
+
+  @Test
+  void dropsLeastRecentlyUsedEntryBeyondMaxSize() {
+    assistantCache.put(assistant("asst_1", "v1"));
+    assistantCache.put(assistant("asst_2", "v1"));
+    assistantCache.get("asst_1");
+    assistantCache.put(assistant("asst_3", "v1"));
+
+    when(openAIAssistantService.retrieveAssistant("asst_2")).thenReturn(assistant("asst_2", "v2"));
+
+    assertEquals("v1", assistantCache.get("asst_1").name());
+    assertEquals("v2", assistantCache.get("asst_2").name());
+  }
+
+  private static OpenAIException failure(int statusCode) {
+    return new OpenAIException("Request failed with code " + statusCode, statusCode,
+        new ApiErrorBody("error", "server_error", null, null));
+  }
+
+  private static Assistant assistant(String name) {
+    return assistant("asst_1", name);
+  }
+
+  private static Assistant assistant(String id, String name) {
+    return new Assistant(id, "assistant", null, name, null, "gpt-4", null, null, null, null);
+  }
+}
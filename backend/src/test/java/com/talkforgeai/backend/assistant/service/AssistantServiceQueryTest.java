@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.backend.assistant.domain.AssistantEntity;
+import com.talkforgeai.backend.assistant.domain.MessageEntity;
+import com.talkforgeai.backend.assistant.dto.AssistantDto;
+import com.talkforgeai.backend.assistant.dto.MessageListParsedDto;
+import com.talkforgeai.backend.assistant.repository.AssistantRepository;
+import com.talkforgeai.backend.assistant.repository.MessageRepository;
+import com.talkforgeai.backend.assistant.repository.ThreadRepository;
+import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.backend.storage.ImageVariantService;
+import com.talkforgeai.backend.transformers.MessageProcessor;
+import com.talkforgeai.service.openai.assistant.OpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.ReactiveOpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.dto.Assistant;
+import com.talkforgeai.service.openai.assistant.dto.AssistantList;
+import com.talkforgeai.service.openai.assistant.dto.ListRequest;
+import com.talkforgeai.service.openai.assistant.dto.Message;
+import com.talkforgeai.service.openai.assistant.dto.MessageList;
+import com.talkforgeai.service.openai.chat.OpenAIChatService;
+import com.talkforgeai.service.openai.image.OpenAIImageService;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Counts the SQL statements the list methods issue against the real schema, to make sure they
+ * don't grow with the number of listed items.
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:sqlite:file:assistant-queries?mode=memory&cache=shared",
+    "spring.datasource.driverClassName=org.sqlite.JDBC",
+    "spring.jpa.database-platform=org.hibernate.community.dialect.SQLiteDialect",
+    "spring.jpa.hibernate.ddl-auto=validate",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class AssistantServiceQueryTest {
+
+  @Configuration
+  @EntityScan(basePackageClasses = AssistantEntity.class)
+  @EnableJpaRepositories(basePackageClasses = AssistantRepository.class)
+  static class Config {
+
+  }
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  AssistantRepository assistantRepository;
+
+  @Autowired
+  MessageRepository messageRepository;
+
+  OpenAIAssistantService openAIAssistantService;
+  AssistantMapper assistantMapper;
+  AssistantService assistantService;
+  Statistics statistics;
+
+  @BeforeEach
+  void before() {
+    openAIAssistantService = Mockito.mock(OpenAIAssistantService.class);
+    assistantMapper = new AssistantMapper();
+
+    assistantService = new AssistantService(
+        openAIAssistantService,
+        Mockito.mock(ReactiveOpenAIAssistantService.class),
+        Mockito.mock(OpenAIChatService.class),
+        Mockito.mock(OpenAIImageService.class),
+        assistantRepository,
+        messageRepository,
+        Mockito.mock(ThreadRepository.class),
+        Mockito.mock(FileStorageService.class),
+        Mockito.mock(MessageProcessor.class),
+        assistantMapper,
+        Mockito.mock(RunStatusTracker.class),
+        Mockito.mock(AssistantCache.class),
+        Mockito.mock(ModelCatalogue.class),
+        Mockito.mock(ImageVariantService.class)
+    );
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 100})
+  void listMessagesIssuesOneStatement(int messageCount) {
+    List<Message> messages = IntStream.range(0, messageCount)
+        .mapToObj(i -> new Message("msg_" + i, "thread.message", null, "thread_1", null, null,
+            null, null, null, null))
+        .toList();
+    messages.forEach(message -> {
+      MessageEntity entity = new MessageEntity();
+      entity.setId(message.id());
+      entity.setParsedContent("<p>" + message.id() + "</p>");
+      entityManager.persist(entity);
+    });
+    startCounting();
+
+    when(openAIAssistantService.listMessages(eq("thread_1"), any()))
+        .thenReturn(new MessageList("list", messages, null, null, false));
+
+    MessageListParsedDto result = assistantService.listMessages("thread_1", new ListRequest());
+
+    assertEquals(messageCount, result.parsedMessages().size());
+    assertEquals("<p>msg_0</p>", result.parsedMessages().get("msg_0"));
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 100})
+  void listAssistantsIssuesOneStatementIncludingProperties(int assistantCount) {
+    List<Assistant> assistants = IntStream.range(0, assistantCount)
+        .mapToObj(i -> new Assistant("asst_" + i, "assistant", null, "Assistant " + i, null,
+            "gpt-4", null, null, null, null))
+        .toList();
+    assistants.forEach(assistant -> {
+      AssistantEntity entity = new AssistantEntity();
+      entity.setId(assistant.id());
+      entity.setProperties(assistantMapper.mapProperties(
+          Map.of(AssistantProperties.TTS_TYPE.getKey(), "speechAPI")));
+      entityManager.persist(entity);
+    });
+    startCounting();
+
+    when(openAIAssistantService.listAssistants(any()))
+        .thenReturn(new AssistantList("list", assistants, null, null, false));
+
+    List<AssistantDto> result = assistantService.listAssistants(new ListRequest());
+
+    assertEquals(assistantCount, result.size());
+    assertEquals("speechAPI",
+        result.get(0).properties().get(AssistantProperties.TTS_TYPE.getKey()));
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  /**
+   * Writes the test data and empties the persistence context, so every entity has to be loaded
+   * from the database again.
+   */
+  private void startCounting() {
+    entityManager.flush();
+    entityManager.clear();
+    statistics.clear();
+  }
+}
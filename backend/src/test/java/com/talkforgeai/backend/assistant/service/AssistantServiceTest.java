@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.backend.assistant.domain.MessageEntity;
+import com.talkforgeai.backend.assistant.dto.ParsedMessageDto;
+import com.talkforgeai.backend.assistant.repository.AssistantRepository;
+import com.talkforgeai.backend.assistant.repository.MessageRepository;
+import com.talkforgeai.backend.assistant.repository.ThreadRepository;
+import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.backend.storage.ImageVariantService;
+import com.talkforgeai.backend.transformers.IncrementalMessageProcessor;
+import com.talkforgeai.backend.transformers.MessageProcessor;
+import com.talkforgeai.service.openai.assistant.OpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.ReactiveOpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.dto.Message;
+import com.talkforgeai.service.openai.assistant.dto.Message.ContentItem;
+import com.talkforgeai.service.openai.assistant.dto.Message.ContentItem.TextContent;
+import com.talkforgeai.service.openai.assistant.dto.Run;
+import com.talkforgeai.service.openai.assistant.dto.RunConversationRequest;
+import com.talkforgeai.service.openai.assistant.dto.RunStreamEvent;
+import com.talkforgeai.service.openai.chat.OpenAIChatService;
+import com.talkforgeai.service.openai.image.OpenAIImageService;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+class AssistantServiceTest {
+
+  OpenAIAssistantService openAIAssistantService;
+  ReactiveOpenAIAssistantService reactiveAssistantService;
+  MessageProcessor messageProcessor;
+  AssistantRepository assistantRepository;
+  MessageRepository messageRepository;
+  AssistantService assistantService;
+
+  @BeforeEach
+  void before() {
+    openAIAssistantService = Mockito.mock(OpenAIAssistantService.class);
+    reactiveAssistantService = Mockito.mock(ReactiveOpenAIAssistantService.class);
+    messageProcessor = Mockito.mock(MessageProcessor.class);
+    assistantRepository = Mockito.mock(AssistantRepository.class);
+    messageRepository = Mockito.mock(MessageRepository.class);
+
+    assistantService = new AssistantService(
+        openAIAssistantService,
+        reactiveAssistantService,
+        Mockito.mock(OpenAIChatService.class),
+        Mockito.mock(OpenAIImageService.class),
+        assistantRepository,
+        messageRepository,
+        Mockito.mock(ThreadRepository.class),
+        Mockito.mock(FileStorageService.class),
+        messageProcessor,
+        new AssistantMapper(),
+        Mockito.mock(RunStatusTracker.class),
+        Mockito.mock(AssistantCache.class),
+        Mockito.mock(ModelCatalogue.class),
+        Mockito.mock(ImageVariantService.class)
+    );
+  }
+
+  @Test
+  void streamedRunForwardsDeltasAndTransformsMessagesIncrementally() {
+    Run run = new Run("run_1", "thread.run", 0, "asst_1", "thread_1", "completed", null, null,
+        null, null, null, null, null, null, null, null, null);
+    Message message = new Message("msg_1", "thread.message", null, "thread_1", null,
+        List.of(new ContentItem("text", new TextContent("Hello world.", List.of()), null)),
+        null, null, "run_1", null);
+
+    when(reactiveAssistantService.streamRun(eq("thread_1"), any())).thenReturn(Flux.just(
+        new RunStreamEvent.RunUpdated("thread.run.created", run),
+        new RunStreamEvent.MessageCreated(message),
+        new RunStreamEvent.TextDelta("msg_1", "Hello"),
+        new RunStreamEvent.TextDelta("msg_1", " world."),
+        new RunStreamEvent.MessageCompleted(message),
+        new RunStreamEvent.RunUpdated("thread.run.completed", run)));
+    IncrementalMessageProcessor processor = Mockito.mock(IncrementalMessageProcessor.class);
+    when(messageProcessor.incremental(eq("thread_1"), eq("msg_1"), any())).thenReturn(processor);
+    when(processor.append("Hello")).thenReturn(List.of());
+    when(processor.append(" world.")).thenReturn(List.of("Hello world."));
+    when(processor.pendingText()).thenReturn("");
+    when(processor.html()).thenReturn("Hello world.");
+
+    List<ServerSentEvent<Object>> events = assistantService.streamRun("thread_1",
+        new RunConversationRequest("asst_1")).collectList().block();
+
+    assertEquals(List.of("run", "delta", "delta", "block", "message", "run"),
+        events.stream().map(ServerSentEvent::event).toList());
+    assertEquals("Hello world.", ((ParsedMessageDto) events.get(4).data()).getParsedContent());
+    verify(processor).finish();
+    verify(messageProcessor, never()).transform(anyString(), anyString(), anyString(), any());
+    verify(messageRepository).save(any(MessageEntity.class));
+  }
+}
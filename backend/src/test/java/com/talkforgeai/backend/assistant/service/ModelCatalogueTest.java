@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.service.openai.assistant.OpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.dto.GptModel;
+import com.talkforgeai.service.openai.assistant.dto.GptModelList;
+import com.talkforgeai.service.openai.exception.OpenAIException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.quartz.Scheduler;
+
+class ModelCatalogueTest {
+
+  static final Duration MAX_AGE = Duration.ofHours(1);
+
+  OpenAIAssistantService openAIAssistantService;
+  Scheduler scheduler;
+  Instant now;
+  ModelCatalogue modelCatalogue;
+
+  @BeforeEach
+  void before() {
+    openAIAssistantService = Mockito.mock(OpenAIAssistantService.class);
+    scheduler = Mockito.mock(Scheduler.class);
+    now = Instant.parse("2024-01-01T00:00:00Z");
+
+    Clock clock = Mockito.mock(Clock.class);
+    when(clock.instant()).thenAnswer(invocation -> now);
+
+    modelCatalogue = new ModelCatalogue(openAIAssistantService, scheduler, MAX_AGE, clock);
+  }
+
+  @Test
+  void loadsCatalogueOnFirstRead() throws Exception {
+    when(openAIAssistantService.retrieveModels())
+        .thenReturn(models("gpt-4", "gpt-3.5-turbo-instruct", "dall-e-3"));
+
+    assertEquals(List.of("gpt-4"), modelCatalogue.getModelIds());
+    verify(scheduler, never()).triggerJob(ModelCatalogueRefreshJob.JOB_KEY);
+  }
+
+  @Test
+  void failsIfFirstLoadFails() {
+    when(openAIAssistantService.retrieveModels()).thenThrow(unavailable());
+
+    assertThrows(OpenAIException.class, () -> modelCatalogue.getModelIds());
+  }
+
+  @Test
+  void servesStaleCatalogueWhileRefreshing() throws Exception {
+    when(openAIAssistantService.retrieveModels()).thenReturn(models("gpt-4"));
+    modelCatalogue.getModelIds();
+
+    now = now.plus(MAX_AGE).plusSeconds(1);
+
+    assertEquals(List.of("gpt-4"), modelCatalogue.getModelIds());
+    verify(openAIAssistantService, times(1)).retrieveModels();
+    verify(scheduler, times(1)).triggerJob(ModelCatalogueRefreshJob.JOB_KEY);
+  }
+
+  @Test
+  void keepsCatalogueWhenRefreshFails() {
+    when(openAIAssistantService.retrieveModels())
+        .thenReturn(models("gpt-4"))
+        .thenThrow(unavailable());
+    modelCatalogue.getModelIds();
+
+    assertEquals(List.of("gpt-4"), modelCatalogue.refresh());
+    assertEquals(List.of("gpt-4"), modelCatalogue.getModelIds());
+  }
+
+  @Test
+  void triggersOneRefreshWhileOneIsPending() throws Exception {
+    when(openAIAssistantService.retrieveModels()).thenReturn(models("gpt-4"));
+    modelCatalogue.getModelIds();
+    now = now.plus(MAX_AGE).plusSeconds(1);
+
+    for (int i = 0; i < 10; i++) {
+      modelCatalogue.getModelIds();
+    }
+
+    verify(scheduler, times(1)).triggerJob(ModelCatalogueRefreshJob.JOB_KEY);
+  }
+
+  @Test
+  void backsOffAfterFailedRefresh() throws Exception {
+    when(openAIAssistantService.retrieveModels())
+        .thenReturn(models("gpt-4"))
+        .thenThrow(unavailable());
+    modelCatalogue.getModelIds();
+    now = now.plus(MAX_AGE).plusSeconds(1);
+
+    modelCatalogue.getModelIds();
+    modelCatalogue.refresh(); // the triggered job, failing
+    modelCatalogue.getModelIds();
+    verify(scheduler, times(1)).triggerJob(ModelCatalogueRefreshJob.JOB_KEY);
+
+    now = now.plus(ModelCatalogue.MIN_RETRY_DELAY).plusSeconds(1);
+    modelCatalogue.getModelIds();
+    verify(scheduler, times(2)).triggerJob(ModelCatalogueRefreshJob.JOB_KEY);
+
+    // The retry delay doubles after each failure.
+    modelCatalogue.refresh();
+    now = now.plus(ModelCatalogue.MIN_RETRY_DELAY).plusSeconds(1);
+    modelCatalogue.getModelIds();
+    verify(scheduler, times(2)).triggerJob(ModelCatalogueRefreshJob.JOB_KEY);
+  }
+
+  @Test
+  void triggersAgainAfterSuccessfulRefresh() throws Exception {
+    when(openAIAssistantService.retrieveModels()).thenReturn(models("gpt-4"));
+    modelCatalogue.getModelIds();
+    now = now.plus(MAX_AGE).plusSeconds(1);
+
+    modelCatalogue.getModelIds();
+    modelCatalogue.refresh();
+    now = now.plus(MAX_AGE).plusSeconds(1);
+    modelCatalogue.getModelIds();
+
+    verify(scheduler, times(2)).triggerJob(ModelCatalogueRefreshJob.JOB_KEY);
+  }
+
+  private static OpenAIException unavailable() {
+    return new OpenAIException("Service unavailable", new IllegalStateException("down"));
+  }
+
+  private static GptModelList models(String... ids) {
+    return new GptModelList(List.of(ids).stream().map(GptModel::new).toList());
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.assistant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.backend.websocket.dto.WSRunStatusMessage;
+import com.talkforgeai.backend.websocket.dto.WebsocketMessage;
+import com.talkforgeai.backend.websocket.dto.WebsocketMessageType;
+import com.talkforgeai.backend.websocket.service.WebSocketService;
+import com.talkforgeai.service.openai.assistant.OpenAIAssistantService;
+import com.talkforgeai.service.openai.assistant.dto.Run;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class RunStatusTrackerTest {
+
+  OpenAIAssistantService openAIAssistantService;
+  WebSocketService webSocketService;
+  List<ScheduledTask> scheduled;
+  Instant now;
+  RunStatusTracker tracker;
+
+  @BeforeEach
+  void before() {
+    openAIAssistantService = Mockito.mock(OpenAIAssistantService.class);
+    webSocketService = Mockito.mock(WebSocketService.class);
+    scheduled = new ArrayList<>();
+    now = Instant.parse("2024-01-01T00:00:00Z");
+
+    ScheduledExecutorService scheduler = Mockito.mock(ScheduledExecutorService.class);
+    when(scheduler.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS)))
+        .thenAnswer(invocation -> {
+          scheduled.add(new ScheduledTask(invocation.getArgument(0), invocation.getArgument(1)));
+          return null;
+        });
+    Clock clock = Mockito.mock(Clock.class);
+    when(clock.instant()).thenAnswer(invocation -> now);
+
+    tracker = new RunStatusTracker(openAIAssistantService, webSocketService, scheduler, clock);
+  }
+
+  @Test
+  void publishesEachStatusTransitionOnce() {
+    when(openAIAssistantService.retrieveRun("thread_1", "run_1"))
+        .thenReturn(run("queued"), run("in_progress"), run("in_progress"), run("completed"));
+
+    tracker.track(run("queued"));
+    pollNext();
+    pollNext();
+    pollNext();
+    pollNext();
+
+    assertEquals(List.of("queued", "in_progress", "completed"), publishedStatuses());
+    assertEquals("completed", tracker.lastKnown("run_1").orElseThrow().status());
+    assertEquals(RunStatusTracker.RETENTION_AFTER_FINISH.toMillis(), nextTask().delayMs());
+  }
+
+  @Test
+  void backsOffWhileStatusIsUnchanged() {
+    when(openAIAssistantService.retrieveRun("thread_1", "run_1")).thenReturn(run("queued"));
+
+    tracker.track(run("queued"));
+    List<Long> delays = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      delays.add(nextTask().delayMs());
+      pollNext();
+    }
+
+    assertEquals(List.of(500L, 750L, 1125L, 1687L, 2530L, 3795L, 5000L, 5000L), delays);
+  }
+
+  @Test
+  void resetsBackoffOnStatusChange() {
+    when(openAIAssistantService.retrieveRun("thread_1", "run_1"))
+        .thenReturn(run("queued"), run("queued"), run("in_progress"));
+
+    tracker.track(run("queued"));
+    pollNext();
+    pollNext();
+    pollNext();
+
+    assertEquals(RunStatusTracker.INITIAL_DELAY_MS, nextTask().delayMs());
+  }
+
+  @Test
+  void givesUpAfterRepeatedUnexpectedFailures() {
+    when(openAIAssistantService.retrieveRun("thread_1", "run_1"))
+        .thenThrow(new NullPointerException("status"));
+
+    tracker.track(run("queued"));
+    for (int i = 0; i < RunStatusTracker.MAX_FAILURES; i++) {
+      assertTrue(tracker.lastKnown("run_1").isPresent(), "tracked before failure " + (i + 1));
+      pollNext();
+    }
+
+    assertTrue(tracker.lastKnown("run_1").isEmpty(), "run should be dropped after giving up");
+    assertTrue(scheduled.isEmpty(), "no poll should be scheduled after giving up");
+    assertEquals(WebsocketMessageType.RUN_TRACKING_STOPPED, lastPublishedType());
+  }
+
+  @Test
+  void keepsPollingAfterSingleFailure() {
+    when(openAIAssistantService.retrieveRun("thread_1", "run_1"))
+        .thenThrow(new IllegalStateException("boom"))
+        .thenReturn(run("completed"));
+
+    tracker.track(run("queued"));
+    pollNext();
+    assertEquals(RunStatusTracker.MAX_DELAY_MS, nextTask().delayMs());
+    pollNext();
+
+    assertEquals("completed", tracker.lastKnown("run_1").orElseThrow().status());
+  }
+
+  @Test
+  void keepsPollingWhenPublishingFails() {
+    doThrow(new RuntimeException("broker down")).when(webSocketService)
+        .sendMessage(anyString(), any(WebsocketMessage.class));
+    when(openAIAssistantService.retrieveRun("thread_1", "run_1")).thenReturn(run("in_progress"));
+
+    tracker.track(run("queued"));
+    pollNext();
+
+    assertEquals("in_progress", tracker.lastKnown("run_1").orElseThrow().status());
+    assertEquals(RunStatusTracker.INITIAL_DELAY_MS, nextTask().delayMs());
+  }
+
+  @Test
+  void stopsTrackingAfterMaxTrackingTime() {
+    when(openAIAssistantService.retrieveRun("thread_1", "run_1")).thenReturn(run("in_progress"));
+
+    tracker.track(run("queued"));
+    now = now.plus(RunStatusTracker.MAX_TRACKING_TIME).plusSeconds(1);
+    pollNext();
+
+    assertTrue(tracker.lastKnown("run_1").isEmpty());
+    assertTrue(scheduled.isEmpty());
+    assertEquals(WebsocketMessageType.RUN_TRACKING_STOPPED, lastPublishedType());
+    assertEquals(List.of("queued", "in_progress", "in_progress"), publishedStatuses());
+  }
+
+  @Test
+  void concurrentLookupsShareOneUpstreamRequest() throws Exception {
+    CountDownLatch upstreamCalled = new CountDownLatch(1);
+    CountDownLatch releaseUpstream = new CountDownLatch(1);
+    when(openAIAssistantService.retrieveRun("thread_1", "run_1")).thenAnswer(invocation -> {
+      upstreamCalled.countDown();
+      releaseUpstream.await();
+      return run("in_progress");
+    });
+
+    CompletableFuture<Run> first = CompletableFuture.supplyAsync(
+        () -> tracker.retrieve("thread_1", "run_1"));
+    assertTrue(upstreamCalled.await(5, TimeUnit.SECONDS));
+
+    Thread second = new Thread(() -> tracker.retrieve("thread_1", "run_1"));
+    second.start();
+    while (second.getState() != Thread.State.WAITING && second.isAlive()) {
+      Thread.onSpinWait();
+    }
+    releaseUpstream.countDown();
+    second.join(5000);
+
+    assertEquals("in_progress", first.get(5, TimeUnit.SECONDS).status());
+    verify(openAIAssistantService, times(1)).retrieveRun("thread_1", "run_1");
+  }
+
+  private void pollNext() {
+    scheduled.remove(0).task().run();
+  }
+
+  private ScheduledTask nextTask() {
+    return scheduled.get(0);
+  }
+
+  private List<String> publishedStatuses() {
+    return publishedMessages().stream()
+        .map(message -> ((WSRunStatusMessage) message).getRun().status())
+        .toList();
+  }
+
+  private WebsocketMessageType lastPublishedType() {
+    List<WebsocketMessage> messages = publishedMessages();
+    return messages.get(messages.size() - 1).getType();
+  }
+
+  private List<WebsocketMessage> publishedMessages() {
+    ArgumentCaptor<WebsocketMessage> captor = ArgumentCaptor.forClass(WebsocketMessage.class);
+    verify(webSocketService, Mockito.atLeastOnce())
+        .sendMessage(eq(RunStatusTracker.topic("thread_1", "run_1")), captor.capture());
+    return captor.getAllValues();
+  }
+
+  private static Run run(String status) {
+    return new Run("run_1", "thread.run", 0, "asst_1", "thread_1", status, null, null, null,
+        null, null, null, null, null, null, null, null);
+  }
+
+  private record ScheduledTask(Runnable task, long delayMs) {
+
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskCacheIndexTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void loadIndexesEntriesAndDeletesLeftovers() throws IOException {
+    Files.writeString(directory.resolve("a.bin"), "12345");
+    Files.writeString(directory.resolve("b.tmp"), "12345");
+
+    DiskCacheIndex index = new DiskCacheIndex(directory, Set.of(".bin"), 100);
+    index.load();
+
+    assertEquals(1, index.size());
+    assertEquals(5, index.totalBytes());
+    assertTrue(index.contains("a.bin"));
+    assertFalse(Files.exists(directory.resolve("b.tmp")));
+  }
+
+  @Test
+  void leastRecentlyUsedEntryIsEvicted() throws IOException {
+    DiskCacheIndex index = new DiskCacheIndex(directory, Set.of(".bin"), 10);
+    index.load();
+
+    add(index, "a.bin", "12345");
+    add(index, "b.bin", "12345");
+    assertTrue(index.contains("a.bin"));
+    add(index, "c.bin", "12345");
+
+    assertTrue(index.contains("a.bin"));
+    assertFalse(index.contains("b.bin"));
+    assertTrue(index.contains("c.bin"));
+    assertFalse(Files.exists(directory.resolve("b.bin")));
+    assertEquals(10, index.totalBytes());
+  }
+
+  @Test
+  void hitDoesNotTouchCachedFile() throws IOException {
+    DiskCacheIndex index = new DiskCacheIndex(directory, Set.of(".bin"), 100);
+    index.load();
+    add(index, "a.bin", "12345");
+    FileTime lastModified = FileTime.fromMillis(1_000_000);
+    Files.setLastModifiedTime(directory.resolve("a.bin"), lastModified);
+
+    assertTrue(index.contains("a.bin"));
+
+    assertEquals(lastModified, Files.getLastModifiedTime(directory.resolve("a.bin")));
+  }
+
+  @Test
+  void accessOrderSurvivesRestart() throws IOException {
+    DiskCacheIndex index = new DiskCacheIndex(directory, Set.of(".bin"), 10);
+    index.load();
+    add(index, "a.bin", "12345");
+    add(index, "b.bin", "12345");
+    index.contains("a.bin");
+    index.save();
+
+    DiskCacheIndex restarted = new DiskCacheIndex(directory, Set.of(".bin"), 10);
+    restarted.load();
+    add(restarted, "c.bin", "12345");
+
+    assertTrue(restarted.contains("a.bin"));
+    assertFalse(restarted.contains("b.bin"));
+    assertTrue(restarted.contains("c.bin"));
+  }
+
+  @Test
+  void missingFileIsNotCached() throws IOException {
+    DiskCacheIndex index = new DiskCacheIndex(directory, Set.of(".bin"), 100);
+    index.load();
+    add(index, "a.bin", "12345");
+
+    Files.delete(directory.resolve("a.bin"));
+
+    assertFalse(index.contains("a.bin"));
+    assertEquals(0, index.totalBytes());
+  }
+
+  @Test
+  void concurrentAddsKeepIndexAndDirectoryInSync() throws Exception {
+    DiskCacheIndex index = new DiskCacheIndex(directory, Set.of(".bin"), 10);
+    index.load();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int i = 0; i < 400; i++) {
+        String fileName = "k" + (i % 3) + ".bin";
+        tasks.add(executor.submit(() -> {
+          add(index, fileName, "12345");
+          return null;
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    long bytesOnDisk;
+    try (Stream<Path> files = Files.list(directory)) {
+      bytesOnDisk = files.filter(file -> file.toString().endsWith(".bin"))
+          .mapToLong(file -> file.toFile().length())
+          .sum();
+    }
+    assertEquals(index.totalBytes(), bytesOnDisk, "every indexed file must still exist");
+    assertEquals(2, index.size());
+  }
+
+  private static void add(DiskCacheIndex index, String fileName, String content)
+      throws IOException {
+    Path temp = index.createTempFile(fileName);
+    Files.writeString(temp, content);
+    index.add(fileName, temp);
+  }
+}
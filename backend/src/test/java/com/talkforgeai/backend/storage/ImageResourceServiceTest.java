@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+class ImageResourceServiceTest {
+
+  private final ImageResourceService service = new ImageResourceService(
+      new ImageVariantService(List.of(512), 0.8f));
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void svgIsSandboxed() throws IOException {
+    Files.writeString(directory.resolve("diagram_plantuml.svg"),
+        "<svg xmlns=\"http://www.w3.org/2000/svg\"><script>alert(1)</script></svg>");
+
+    ResponseEntity<Resource> response = service.serve(directory, null, "diagram_plantuml.svg");
+
+    assertEquals(MediaType.parseMediaType("image/svg+xml"), response.getHeaders().getContentType());
+    assertEquals(ImageResourceService.SVG_CONTENT_SECURITY_POLICY,
+        response.getHeaders().getFirst("Content-Security-Policy"));
+    assertEquals("nosniff", response.getHeaders().getFirst("X-Content-Type-Options"));
+  }
+
+  @Test
+  void pngIsServedWithoutPolicy() throws IOException {
+    Files.write(directory.resolve("diagram_plantuml.png"),
+        new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+
+    ResponseEntity<Resource> response = service.serve(directory, null, "diagram_plantuml.png");
+
+    assertEquals(MediaType.IMAGE_PNG, response.getHeaders().getContentType());
+    assertNull(response.getHeaders().getFirst("Content-Security-Policy"));
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class ImageTypeTest {
+
+  @Test
+  void detectsBinaryFormats() {
+    assertEquals(Optional.of(ImageType.PNG),
+        detect(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0}));
+    assertEquals(Optional.of(ImageType.JPEG),
+        detect(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+    assertEquals(Optional.of(ImageType.GIF),
+        detect("GIF89a...".getBytes(StandardCharsets.US_ASCII)));
+    assertEquals(Optional.of(ImageType.WEBP),
+        detect("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  @Test
+  void detectsSvg() {
+    assertEquals(Optional.of(ImageType.SVG),
+        detect("<?xml version=\"1.0\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\"/>"
+            .getBytes(StandardCharsets.UTF_8)));
+    assertEquals(Optional.of(ImageType.SVG),
+        detect("  <svg width=\"10\"></svg>".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void rejectsOtherContent() {
+    assertEquals(Optional.empty(), detect("<html><body/></html>".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(Optional.empty(), detect("%PDF-1.7".getBytes(StandardCharsets.US_ASCII)));
+    assertEquals(Optional.empty(), detect(new byte[0]));
+  }
+
+  @Test
+  void streamIsRewoundAfterDetection() throws IOException {
+    byte[] content = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 1, 2, 3};
+    InputStream in = new BufferedInputStream(new ByteArrayInputStream(content));
+
+    assertEquals(Optional.of(ImageType.JPEG), ImageType.detect(in));
+    assertArrayEquals(content, in.readAllBytes());
+  }
+
+  private Optional<ImageType> detect(byte[] header) {
+    return ImageType.detect(header, header.length);
+  }
+}
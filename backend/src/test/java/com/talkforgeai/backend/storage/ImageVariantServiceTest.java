@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImageVariantServiceTest {
+
+  private final ImageVariantService service = new ImageVariantService(List.of(512, 128), 0.8f);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void smallestSufficientVariantIsServed() throws IOException {
+    Path original = image("large.png", 1024, 768);
+
+    Path variant = service.resolve(original, 100);
+
+    assertEquals(directory.resolve("large.png.w128.jpg"), variant);
+    BufferedImage image = ImageIO.read(variant.toFile());
+    assertEquals(128, image.getWidth());
+    assertEquals(96, image.getHeight());
+    assertEquals(directory.resolve("large.png.w512.jpg"), service.resolve(original, 200));
+  }
+
+  @Test
+  void originalIsServedWhenNoVariantIsSmaller() throws IOException {
+    Path small = image("small.png", 100, 100);
+    Path large = image("large.png", 1024, 1024);
+
+    assertEquals(small, service.resolve(small, 64));
+    assertEquals(large, service.resolve(large, 600));
+  }
+
+  private Path image(String name, int width, int height) throws IOException {
+    Path file = directory.resolve(name);
+    ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png",
+        file.toFile());
+    return file;
+  }
+}
@@ -21,19 +21,14 @@ import com.talkforgeai.service.openai.image.OpenAIImageService;
 import com.talkforgeai.service.openai.image.dto.OpenAIImageRequest;
 import com.talkforgeai.service.openai.image.dto.OpenAIImageResponse;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
 
-@Component
 public class ImageDownloadTransformer implements Transformer {
 
   public static final Logger LOGGER = LoggerFactory.getLogger(ImageDownloadTransformer.class);
@@ -102,10 +97,7 @@ public class ImageDownloadTransformer implements Transformer {
     LOGGER.info("Downloading image {}...", imageUrl);
 
     try {
-      URI uri = URI.create(imageUrl);
-      try (InputStream in = uri.toURL().openStream()) {
-        Files.copy(in, localFilePath, StandardCopyOption.REPLACE_EXISTING);
-      }
+      service.download(imageUrl, localFilePath);
     } catch (Exception ex) {
       LOGGER.error("Failed to download image: {}", imageUrl);
       throw ex;
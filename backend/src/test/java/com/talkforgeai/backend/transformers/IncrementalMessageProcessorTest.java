@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.backend.storage.ImageVariantService;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatMessage;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse.StreamResponseChoice;
+import com.talkforgeai.service.openai.image.OpenAIImageService;
+import com.talkforgeai.service.openai.image.dto.OpenAIImageResponse;
+import com.talkforgeai.service.openai.image.dto.OpenAIImageResponse.ImageData;
+import com.talkforgeai.service.plantuml.PlantUMLService;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.core.DiagramDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mockito;
+import org.springframework.util.unit.DataSize;
+
+class IncrementalMessageProcessorTest {
+
+  private static final String UUID_REGEX =
+      "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}";
+
+  private static final String MIXED = """
+      Here's an example:
+
+      ```java
+      Arrays.sort(numbers);
+      ```
+
+      The formula:
+      ```latex
+      \\frac{a}{b}
+      ```
+      And the diagram:
+
+      ```plantuml
+      @startuml
+      Alice -> Bob: Hello
+      @enduml
+      ```
+
+
+      <image-prompt>
+      A 'cat' on a <b>mat</b>
+      </image-prompt>
+      Done.
+      """;
+
+  @TempDir
+  Path threadDirectory;
+
+  MessageProcessor messageProcessor;
+
+  static Stream<Arguments> messages() {
+    return Stream.of(
+        "Just text.",
+        "Line\nbreaks\n\nand\n\n\nparagraphs\n",
+        "```java\nfirst();\n```\n```\nsecond();\n```",
+        "Unclosed:\n```java\nint x;\n\nstill code\n",
+        "Unclosed <image-prompt>prompt\n\nmore\n\n",
+        "<image-prompt>a\n\nb</image-prompt>\n\nafter",
+        "Not a fence ```\r\nb\n\n````\n```\n\n````",
+        "<image-prompt>p ```java\nx\n```\n\nq</image-prompt>\n\n",
+        MIXED,
+        MIXED.repeat(20)
+    ).flatMap(content -> Stream.of(1, 3, 17).map(chunkSize -> Arguments.of(content, chunkSize)));
+  }
+
+  @BeforeEach
+  void before() {
+    PlantUMLService plantUMLService = Mockito.mock(PlantUMLService.class);
+    when(plantUMLService.generateUmlDiagram(anyString(), anyString(), any()))
+        .thenReturn(Mockito.mock(DiagramDescription.class));
+
+    OpenAIImageService imageService = Mockito.mock(OpenAIImageService.class);
+    when(imageService.submit(any())).thenReturn(new OpenAIImageResponse(null,
+        List.of(new ImageData("https://images.example/image.png", null, null))));
+
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getDataDirectory()).thenReturn(threadDirectory);
+    when(fileStorageService.getThreadDirectory()).thenReturn(threadDirectory);
+
+    PlantUmlRenderCache plantUmlRenderCache = new PlantUmlRenderCache(plantUMLService,
+        fileStorageService, DataSize.ofMegabytes(1));
+    plantUmlRenderCache.loadIndex();
+
+    messageProcessor = new MessageProcessor(fileStorageService,
+        new ArtifactRenderer(plantUmlRenderCache, imageService,
+            Mockito.mock(ImageVariantService.class)), 2);
+  }
+
+  @ParameterizedTest
+  @MethodSource("messages")
+  void outputMatchesTransformOfCompleteMessage(String content, int chunkSize) {
+    IncrementalMessageProcessor processor = messageProcessor.incremental("thread_1", "msg_1",
+        FileFormat.PNG);
+
+    StringBuilder html = new StringBuilder();
+    for (int i = 0; i < content.length(); i += chunkSize) {
+      processor.append(content.substring(i, Math.min(content.length(), i + chunkSize)))
+          .forEach(html::append);
+    }
+    html.append(processor.finish());
+
+    String expected = messageProcessor.transform(content, "thread_1", "msg_1")
+        .replaceAll(UUID_REGEX, "UUID");
+    assertEquals(expected, html.toString().replaceAll(UUID_REGEX, "UUID"));
+    assertEquals(expected, processor.html().replaceAll(UUID_REGEX, "UUID"));
+  }
+
+  @Test
+  void completedRegionsAreEmittedAndOpenRegionIsBuffered() {
+    IncrementalMessageProcessor processor = messageProcessor.incremental("thread_1", "msg_1",
+        FileFormat.PNG);
+
+    assertEquals(List.of(), processor.append("First paragraph"));
+    assertEquals(List.of("First paragraph."), processor.append(".\n\n```java\nint x;\n\n"));
+    assertEquals("```java\nint x;\n\n", processor.pendingText());
+
+    List<String> block = processor.append("```\nrest");
+    assertEquals(1, block.size());
+    assertTrue(block.get(0).contains("<code class=\"language-java\">int x;\n\n</code>"));
+    assertEquals("\nrest", processor.pendingText());
+  }
+
+  @Test
+  void chatStreamChunksAreAccepted() {
+    IncrementalMessageProcessor processor = messageProcessor.incremental("thread_1", "msg_1",
+        FileFormat.PNG);
+
+    assertEquals(List.of(), processor.append(chunk("Hello")));
+    assertEquals(List.of("Hello"), processor.append(chunk("\n\n")));
+    assertEquals(List.of(), processor.append(chunk(null)));
+    assertEquals(List.of(), processor.append(chunk("world")));
+    assertEquals("<p/>world", processor.finish());
+  }
+
+  private static OpenAIChatStreamResponse chunk(String content) {
+    return new OpenAIChatStreamResponse("chatcmpl-1", "chat.completion.chunk", null, "gpt-4",
+        List.of(new StreamResponseChoice(0,
+            new OpenAIChatMessage(OpenAIChatMessage.Role.ASSISTANT, content), null)),
+        null);
+  }
+}
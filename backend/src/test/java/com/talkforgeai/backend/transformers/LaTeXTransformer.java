@@ -19,12 +19,10 @@ package com.talkforgeai.backend.transformers;
 import com.talkforgeai.backend.transformers.dto.TransformerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-@Component
 public class LaTeXTransformer implements Transformer {
     private static final Logger LOGGER = LoggerFactory.getLogger(LaTeXTransformer.class);
     private static final Pattern UrlRegEx = Pattern.compile("```latex\n([\\s\\S]*?)```", Pattern.MULTILINE);
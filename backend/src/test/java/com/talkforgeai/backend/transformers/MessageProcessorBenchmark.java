@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+import com.talkforgeai.backend.transformers.dto.TransformerContext;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of rendering a message of about 100KB, single-pass tokenizer and renderer against the
+ * former transformer chain. The message holds text, code and LaTeX blocks only, so neither side
+ * renders diagrams or images and the numbers show the parsing and rendering alone.
+ * <p>
+ * Not run by the test suite; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageProcessorBenchmark {
+
+  private static final String SECTION = """
+      Here's an example of how to use the "Arrays.sort()" method:
+
+      ```java
+      int[] numbers = { 5, 3, 9, 1, 7 };
+      Arrays.sort(numbers);
+      ```
+
+      The formula:
+      ```latex
+      \\frac{a}{b}
+      ```
+      It sorts in place.
+      The array is modified.
+
+      """;
+
+  private static final ArtifactResolver NO_ARTIFACTS = new ArtifactResolver() {
+    @Override
+    public String plantUmlImageUrl(String code) {
+      throw new IllegalStateException("The benchmark message has no diagrams.");
+    }
+
+    @Override
+    public String imageUrl(String prompt) {
+      throw new IllegalStateException("The benchmark message has no image prompts.");
+    }
+  };
+
+  private String message;
+  private List<Transformer> transformers;
+  private TransformerContext context;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(MessageProcessorBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  @Setup
+  public void setup() {
+    message = SECTION.repeat(100 * 1024 / SECTION.length());
+    transformers = List.of(
+        new LaTeXTransformer(),
+        new PlantUMLTransformer(null),
+        new CodeBlockTransformer(),
+        new NewLineTransformer(),
+        new ImageDownloadTransformer(null)
+    );
+    context = new TransformerContext("thread_1", "message_1", null, null);
+  }
+
+  @Benchmark
+  public String singlePass() {
+    return MessageRenderer.render(MessageTokenizer.tokenize(message), NO_ARTIFACTS);
+  }
+
+  @Benchmark
+  public String transformerChain() {
+    String content = message;
+    for (Transformer transformer : transformers) {
+      content = transformer.process(content, context);
+    }
+    return content;
+  }
+}
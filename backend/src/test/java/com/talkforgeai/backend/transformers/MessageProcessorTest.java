@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.backend.storage.ImageVariantService;
+import com.talkforgeai.backend.transformers.dto.TransformerContext;
+import com.talkforgeai.service.openai.image.OpenAIImageService;
+import com.talkforgeai.service.openai.image.dto.OpenAIImageResponse;
+import com.talkforgeai.service.openai.image.dto.OpenAIImageResponse.ImageData;
+import com.talkforgeai.service.plantuml.PlantUMLService;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import net.sourceforge.plantuml.core.DiagramDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mockito;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Golden tests comparing {@link MessageProcessor} with the former transformer chain, which is kept
+ * in the test sources as the reference implementation.
+ */
+class MessageProcessorTest {
+
+  private static final String UUID_REGEX =
+      "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}";
+
+  private static final String MIXED = """
+      Here's an example of how to use the "Arrays.sort()" method:
+
+      ```java
+      int[] numbers = { 5, 3, 9, 1, 7 };
+      Arrays.sort(numbers);
+      ```
+
+      The formula:
+      ```latex
+      \\frac{a}{b}
+      ```
+      And the diagram:
+
+      ```plantuml
+      @startuml
+      Alice -> Bob: Hello
+      @enduml
+      ```
+
+
+      <image-prompt>
+      A 'cat' on a <b>mat</b>
+      </image-prompt>
+      Done.
+      """;
+
+  @TempDir
+  Path threadDirectory;
+
+  PlantUMLService plantUMLService;
+  OpenAIImageService imageService;
+  MessageProcessor messageProcessor;
+  TransformerContext context;
+
+  static Stream<String> messages() {
+    return Stream.of(
+        "Just text.",
+        "Line\nbreaks\n\nand\n\n\nparagraphs\n",
+        "Here's an example of how to use the \"Arrays.sort()\" method:\n\n"
+            + "```java\nint[] numbers = { 5, 3, 9, 1, 7 };\nArrays.sort(numbers);\n```\n\n<smiley>",
+        "Here's an example of how to use the \"Arrays.sort()\" method:\n\n"
+            + "```\nint[] numbers = { 5, 3, 9, 1, 7 };\nArrays.sort(numbers);\n```\n\n<smiley>",
+        "```java\nfirst();\n```\n```\nsecond();\n```",
+        "```java\nsame();\n```\ntext\n```java\nsame();\n```\n",
+        "Format with %s and %d:\n```\nprintf(\"%s\");\n```",
+        "```\n@startuml\nA -> B\n@enduml\n```\n",
+        "Text <image-prompt>a dog</image-prompt> and <image-prompt>a dog</image-prompt>",
+        "Unclosed:\n```java\nint x;\n",
+        "Unclosed <image-prompt>prompt",
+        MIXED,
+        MIXED.repeat(330)
+    );
+  }
+
+  @BeforeEach
+  void before() {
+    plantUMLService = Mockito.mock(PlantUMLService.class);
+    when(plantUMLService.generateUmlDiagram(anyString(), anyString()))
+        .thenReturn(Mockito.mock(DiagramDescription.class));
+
+    imageService = Mockito.mock(OpenAIImageService.class);
+    when(imageService.submit(any())).thenReturn(new OpenAIImageResponse(null,
+        List.of(new ImageData("https://images.example/image.png", null, null))));
+
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getDataDirectory()).thenReturn(threadDirectory);
+    when(fileStorageService.getThreadDirectory()).thenReturn(threadDirectory);
+
+    PlantUmlRenderCache plantUmlRenderCache = new PlantUmlRenderCache(plantUMLService,
+        fileStorageService, DataSize.ofMegabytes(1));
+    plantUmlRenderCache.loadIndex();
+
+    messageProcessor = new MessageProcessor(fileStorageService,
+        new ArtifactRenderer(plantUmlRenderCache, imageService,
+            Mockito.mock(ImageVariantService.class)), 2);
+    context = new TransformerContext("thread_Ddf483dKe", "message_283Eeu3", null,
+        threadDirectory);
+  }
+
+  @ParameterizedTest
+  @MethodSource("messages")
+  void outputMatchesTransformerChain(String content) {
+    String expected = transformWithChain(content);
+    String processed = messageProcessor.transform(content, context.threadId(),
+        context.messageId());
+
+    assertEquals(expected.replaceAll(UUID_REGEX, "UUID"), processed.replaceAll(UUID_REGEX, "UUID"));
+  }
+
+  @Test
+  void imagePromptInCodeBlockStaysCode() {
+    // The former chain generated an image here; see MessageTokenizer.
+    String processed = messageProcessor.transform(
+        "Draw it:\n```\n<image-prompt>a dog</image-prompt>\n```\nDone.",
+        context.threadId(), context.messageId());
+
+    assertEquals("""
+        Draw it:<br/><!-- start no-lb -->
+        <pre>
+          <code ><image-prompt>a dog</image-prompt>
+        </code>
+        </pre>
+        <!-- end no-lb --><p/>Done.""", processed);
+    verify(imageService, never()).submit(any());
+  }
+
+  @Test
+  void identicalArtifactsAreRenderedOnce() {
+    String diagram = "```plantuml\n@startuml\nA -> B\n@enduml\n```\n";
+    String content = diagram + "text\n" + diagram
+        + "<image-prompt>a dog</image-prompt><image-prompt>a dog</image-prompt>";
+
+    messageProcessor.transform(content, context.threadId(), context.messageId());
+
+    verify(plantUMLService, times(1)).generateUmlDiagram(anyString(), anyString(), any());
+    verify(imageService, times(1)).submit(any());
+  }
+
+  @Test
+  void artifactsAreRenderedConcurrently() {
+    CyclicBarrier bothStarted = new CyclicBarrier(2);
+    when(imageService.submit(any())).thenAnswer(invocation -> {
+      bothStarted.await(5, TimeUnit.SECONDS);
+      return new OpenAIImageResponse(null,
+          List.of(new ImageData("https://images.example/image.png", null, null)));
+    });
+
+    String processed = messageProcessor.transform(
+        "<image-prompt>a dog</image-prompt><image-prompt>a cat</image-prompt>",
+        context.threadId(), context.messageId());
+
+    assertEquals(2, processed.split("_image.png").length - 1);
+  }
+
+  private String transformWithChain(String content) {
+    List<Transformer> transformers = List.of(
+        new LaTeXTransformer(),
+        new PlantUMLTransformer(plantUMLService),
+        new CodeBlockTransformer(),
+        new NewLineTransformer(),
+        new ImageDownloadTransformer(imageService)
+    );
+
+    for (Transformer transformer : transformers) {
+      content = transformer.process(content, context);
+    }
+    return content;
+  }
+}
@@ -21,7 +21,6 @@ import com.talkforgeai.service.plantuml.PlantUMLService;
 import net.sourceforge.plantuml.core.DiagramDescription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -30,7 +29,6 @@ import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-@Component
 public class PlantUMLTransformer implements Transformer {
     private static final Logger LOGGER = LoggerFactory.getLogger(PlantUMLTransformer.class);
     private static final Pattern UrlRegEx = Pattern.compile("```(.*)\n@startuml\n([\\s\\S]*?)```", Pattern.MULTILINE);
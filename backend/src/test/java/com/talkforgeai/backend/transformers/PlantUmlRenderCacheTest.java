@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.transformers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.service.plantuml.PlantUMLService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import net.sourceforge.plantuml.FileFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.util.unit.DataSize;
+
+class PlantUmlRenderCacheTest {
+
+  private static final String DIAGRAM_A = "@startuml\nA -> B\n@enduml\n";
+  private static final String DIAGRAM_B = "@startuml\nB -> C\n@enduml\n";
+
+  @TempDir
+  Path dataDirectory;
+
+  PlantUMLService plantUMLService;
+  FileStorageService fileStorageService;
+
+  @BeforeEach
+  void before() {
+    plantUMLService = Mockito.mock(PlantUMLService.class);
+    when(plantUMLService.generateUmlDiagram(anyString(), anyString(), any()))
+        .thenAnswer(invocation -> {
+          Files.writeString(Path.of(invocation.<String>getArgument(1)), "diagram");
+          return null;
+        });
+
+    fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getDataDirectory()).thenReturn(dataDirectory);
+  }
+
+  @Test
+  void sameSourceIsRenderedOnce() throws IOException {
+    PlantUmlRenderCache cache = createCache(DataSize.ofMegabytes(1));
+
+    cache.render(DIAGRAM_A, FileFormat.PNG, dataDirectory.resolve("first.png"));
+    cache.render(DIAGRAM_A.replace("\n", "  \r\n"), FileFormat.PNG,
+        dataDirectory.resolve("second.png"));
+
+    verify(plantUMLService, times(1)).generateUmlDiagram(anyString(), anyString(), any());
+    assertEquals("diagram", Files.readString(dataDirectory.resolve("first.png")));
+    assertEquals("diagram", Files.readString(dataDirectory.resolve("second.png")));
+  }
+
+  @Test
+  void leastRecentlyUsedDiagramIsEvicted() throws IOException {
+    PlantUmlRenderCache cache = createCache(DataSize.ofBytes(10));
+
+    cache.render(DIAGRAM_A, FileFormat.PNG, dataDirectory.resolve("a.png"));
+    cache.render(DIAGRAM_B, FileFormat.PNG, dataDirectory.resolve("b.png"));
+    cache.render(DIAGRAM_B, FileFormat.PNG, dataDirectory.resolve("b2.png"));
+    cache.render(DIAGRAM_A, FileFormat.PNG, dataDirectory.resolve("a2.png"));
+
+    verify(plantUMLService, times(2)).generateUmlDiagram(eq(DIAGRAM_A), anyString(), any());
+    verify(plantUMLService, times(1)).generateUmlDiagram(eq(DIAGRAM_B), anyString(), any());
+    assertEquals("diagram", Files.readString(dataDirectory.resolve("a.png")));
+  }
+
+  @Test
+  void formatsAreCachedSeparately() {
+    PlantUmlRenderCache cache = createCache(DataSize.ofMegabytes(1));
+
+    cache.render(DIAGRAM_A, FileFormat.PNG, dataDirectory.resolve("a.png"));
+    cache.render(DIAGRAM_A, FileFormat.SVG, dataDirectory.resolve("a.svg"));
+
+    verify(plantUMLService).generateUmlDiagram(anyString(), anyString(), eq(FileFormat.PNG));
+    verify(plantUMLService).generateUmlDiagram(anyString(), anyString(), eq(FileFormat.SVG));
+  }
+
+  @Test
+  void hitKeepsLinkedFileUnchanged() throws IOException {
+    PlantUmlRenderCache cache = createCache(DataSize.ofMegabytes(1));
+    cache.render(DIAGRAM_A, FileFormat.PNG, dataDirectory.resolve("a.png"));
+    FileTime lastModified = FileTime.fromMillis(1_000_000);
+    Files.setLastModifiedTime(dataDirectory.resolve("a.png"), lastModified);
+
+    cache.render(DIAGRAM_A, FileFormat.PNG, dataDirectory.resolve("a2.png"));
+
+    assertEquals(lastModified, Files.getLastModifiedTime(dataDirectory.resolve("a.png")));
+  }
+
+  @Test
+  void diagramEvictedWhileLinkingIsRenderedAgain() throws Exception {
+    // Only one diagram fits, so concurrent renders keep evicting each other's cache files.
+    PlantUmlRenderCache cache = createCache(DataSize.ofBytes(10));
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        String source = i % 2 == 0 ? DIAGRAM_A : DIAGRAM_B;
+        Path target = dataDirectory.resolve("target-" + i + ".png");
+        tasks.add(executor.submit(() -> {
+          cache.render(source, FileFormat.PNG, target);
+          return null;
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    for (int i = 0; i < 200; i++) {
+      assertEquals("diagram", Files.readString(dataDirectory.resolve("target-" + i + ".png")));
+    }
+  }
+
+  @Test
+  void cacheSurvivesRestart() {
+    createCache(DataSize.ofMegabytes(1))
+        .render(DIAGRAM_A, FileFormat.PNG, dataDirectory.resolve("a.png"));
+    createCache(DataSize.ofMegabytes(1))
+        .render(DIAGRAM_A, FileFormat.PNG, dataDirectory.resolve("a2.png"));
+
+    verify(plantUMLService, times(1)).generateUmlDiagram(anyString(), anyString(), any());
+  }
+
+  private PlantUmlRenderCache createCache(DataSize maxSize) {
+    PlantUmlRenderCache cache = new PlantUmlRenderCache(plantUMLService, fileStorageService,
+        maxSize);
+    cache.loadIndex();
+    return cache;
+  }
+}
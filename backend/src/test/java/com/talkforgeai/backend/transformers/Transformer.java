@@ -18,9 +18,13 @@ package com.talkforgeai.backend.transformers;
 
 import com.talkforgeai.backend.transformers.dto.TransformerContext;
 
+/**
+ * Step of the former regex transformer chain, kept as the reference that
+ * {@link MessageProcessorTest} compares {@link MessageProcessor} with.
+ */
 public interface Transformer {
-    String NO_LB_MARKER_START = "<!-- start no-lb -->";
-    String NO_LB_MARKER_END = "<!-- end no-lb -->";
+    String NO_LB_MARKER_START = MessageRenderer.NO_LB_MARKER_START;
+    String NO_LB_MARKER_END = MessageRenderer.NO_LB_MARKER_END;
 
     String process(String content, TransformerContext context);
 
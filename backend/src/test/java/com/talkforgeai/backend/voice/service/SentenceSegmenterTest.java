@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.voice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class SentenceSegmenterTest {
+
+  @Test
+  void sentencesAreEmittedOnceComplete() {
+    SentenceSegmenter segmenter = new SentenceSegmenter();
+
+    assertEquals(List.of(), segmenter.append("The value of pi is 3."));
+    assertEquals(List.of(), segmenter.append("14, roughly speaking!"));
+    assertEquals(List.of("The value of pi is 3.14, roughly speaking!"),
+        segmenter.append(" And then"));
+    assertEquals(List.of(), segmenter.append(" some more"));
+    assertEquals(Optional.of("And then some more"), segmenter.flush());
+  }
+
+  @Test
+  void tokenizedStreamIsSplitLikeWholeText() {
+    String text = "Sure. Here is the first sentence of the answer. \"Is this the second one?\" "
+        + "It is.\n\nA new paragraph without a full stop\n\nThe end.";
+    SentenceSegmenter segmenter = new SentenceSegmenter();
+
+    List<String> sentences = new ArrayList<>();
+    for (int i = 0; i < text.length(); i += 3) {
+      sentences.addAll(segmenter.append(text.substring(i, Math.min(text.length(), i + 3))));
+    }
+    segmenter.flush().ifPresent(sentences::add);
+
+    assertEquals(List.of(
+        "Sure. Here is the first sentence of the answer.",
+        "\"Is this the second one?\"",
+        "It is.\n\nA new paragraph without a full stop",
+        "The end."), sentences);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.voice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.backend.assistant.dto.AssistantDto;
+import com.talkforgeai.backend.assistant.service.AssistantService;
+import com.talkforgeai.service.elevenlabs.ElevenLabsService;
+import com.talkforgeai.service.elevenlabs.dto.ElevenLabsRequest;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+
+class TTSServiceTest {
+
+  @Test
+  void sentenceAudioIsEmittedInOrder() {
+    AssistantService assistantService = Mockito.mock(AssistantService.class);
+    when(assistantService.retrieveAssistant(anyString())).thenReturn(new AssistantDto(null, null,
+        null, null, null, null, null, null, null, null, null, Map.of()));
+
+    // The first sentence takes longest to synthesize.
+    TtsAudioCache ttsAudioCache = Mockito.mock(TtsAudioCache.class);
+    when(ttsAudioCache.stream(any())).thenAnswer(invocation -> {
+      String text = invocation.<ElevenLabsRequest>getArgument(0).text();
+      Thread.sleep(text.startsWith("First") ? 300 : 10);
+      return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    });
+
+    TTSService ttsService = new TTSService(Mockito.mock(ElevenLabsService.class),
+        assistantService, ttsAudioCache, 3);
+
+    Flux<String> deltas = Flux.just("First sentence", " of the reply. Second ",
+        "sentence of the reply. ", "Third sentence of the reply.");
+    List<String> audio = ttsService.streamSentenceVoice(deltas, "assistant")
+        .map(bytes -> new String(bytes, StandardCharsets.UTF_8))
+        .collectList()
+        .block();
+
+    assertEquals(List.of("First sentence of the reply.", "Second sentence of the reply.",
+        "Third sentence of the reply."), audio);
+  }
+
+  @Test
+  void assistantIsRetrievedOnSubscription() {
+    AssistantService assistantService = Mockito.mock(AssistantService.class);
+    when(assistantService.retrieveAssistant(anyString())).thenReturn(new AssistantDto(null, null,
+        null, null, null, null, null, null, null, null, null, Map.of()));
+    TtsAudioCache ttsAudioCache = Mockito.mock(TtsAudioCache.class);
+    when(ttsAudioCache.stream(any())).thenReturn(new ByteArrayInputStream(new byte[]{1}));
+
+    TTSService ttsService = new TTSService(Mockito.mock(ElevenLabsService.class),
+        assistantService, ttsAudioCache, 3);
+
+    Flux<byte[]> audio = ttsService.streamSentenceVoice(Flux.just("Hello."), "assistant");
+    verify(assistantService, never()).retrieveAssistant(anyString());
+
+    assertEquals(1, audio.collectList().block().size());
+    verify(assistantService).retrieveAssistant("assistant");
+  }
+}
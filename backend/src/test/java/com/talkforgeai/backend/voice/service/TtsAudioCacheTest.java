@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.backend.voice.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.talkforgeai.backend.storage.FileStorageService;
+import com.talkforgeai.service.elevenlabs.ElevenLabsService;
+import com.talkforgeai.service.elevenlabs.dto.ElevenLabsRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.util.unit.DataSize;
+
+class TtsAudioCacheTest {
+
+  private static final byte[] AUDIO = "audio".repeat(1000).getBytes(StandardCharsets.US_ASCII);
+  private static final ElevenLabsRequest REQUEST = new ElevenLabsRequest("Hello world.", "voice",
+      "model", new ElevenLabsRequest.VoiceSettings());
+
+  @TempDir
+  Path dataDirectory;
+
+  ElevenLabsService elevenLabsService;
+  TtsAudioCache cache;
+
+  @BeforeEach
+  void before() {
+    elevenLabsService = Mockito.mock(ElevenLabsService.class);
+    when(elevenLabsService.stream(any())).thenAnswer(invocation -> new ByteArrayInputStream(AUDIO));
+
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getDataDirectory()).thenReturn(dataDirectory);
+
+    cache = new TtsAudioCache(elevenLabsService, fileStorageService, DataSize.ofMegabytes(1),
+        Duration.ofMillis(200));
+    cache.loadIndex();
+  }
+
+  @Test
+  void sameRequestIsSynthesizedOnce() throws IOException {
+    assertArrayEquals(AUDIO, read(cache.stream(REQUEST)));
+    assertArrayEquals(AUDIO, read(cache.stream(REQUEST)));
+
+    verify(elevenLabsService, times(1)).stream(any());
+  }
+
+  @Test
+  void otherVoiceSettingsAreSynthesizedAgain() throws IOException {
+    read(cache.stream(REQUEST));
+    read(cache.stream(new ElevenLabsRequest(REQUEST.text(), REQUEST.voiceId(), REQUEST.modelId(),
+        new ElevenLabsRequest.VoiceSettings(0.9, 0.5))));
+
+    verify(elevenLabsService, times(2)).stream(any());
+  }
+
+  @Test
+  void cancelledStreamIsNotCached() throws IOException {
+    try (InputStream audio = cache.stream(REQUEST)) {
+      audio.readNBytes(10);
+    }
+    assertArrayEquals(AUDIO, read(cache.stream(REQUEST)));
+
+    verify(elevenLabsService, times(2)).stream(any());
+    try (Stream<Path> files = Files.list(dataDirectory.resolve("cache").resolve("tts"))) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  void concurrentRequestWaitsForRunningSynthesis() throws Exception {
+    InputStream first = cache.stream(REQUEST);
+    CompletableFuture<byte[]> second = CompletableFuture.supplyAsync(() -> {
+      try {
+        return read(cache.stream(REQUEST));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    assertArrayEquals(AUDIO, read(first));
+    assertArrayEquals(AUDIO, second.get());
+    verify(elevenLabsService, times(1)).stream(any());
+  }
+
+  @Test
+  void concurrentRequestDoesNotWaitForStalledSynthesis() throws Exception {
+    try (InputStream stalled = cache.stream(REQUEST)) {
+      stalled.readNBytes(10);
+
+      byte[] second = CompletableFuture.supplyAsync(() -> {
+        try {
+          return read(cache.stream(REQUEST));
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }).get(5, TimeUnit.SECONDS);
+
+      assertArrayEquals(AUDIO, second);
+    }
+    verify(elevenLabsService, times(2)).stream(any());
+  }
+
+  @Test
+  void evictedEntryIsSynthesizedAgain() throws IOException {
+    read(cache.stream(REQUEST));
+    try (Stream<Path> files = Files.list(dataDirectory.resolve("cache").resolve("tts"))) {
+      for (Path file : files.toList()) {
+        Files.delete(file);
+      }
+    }
+
+    assertArrayEquals(AUDIO, read(cache.stream(REQUEST)));
+    verify(elevenLabsService, times(2)).stream(any());
+  }
+
+  private static byte[] read(InputStream in) throws IOException {
+    try (in) {
+      return in.readAllBytes();
+    }
+  }
+}
@@ -29,6 +29,7 @@ const AssistantProperties = {
   FEATURE_IMAGEGENERATION: 'feature_imageGeneration',
   FEATURE_AUTOSPEAKDEFAULT: 'feature_autoSpeakDefault',
   FEATURE_TITLEGENERATION: 'feature_titleGeneration',
+  PLANTUML_FORMAT: 'plantuml_format',
 };
 
 const TTSType = {
@@ -52,6 +53,7 @@ const AssistantPropertiesDefault = {
   [AssistantProperties.FEATURE_IMAGEGENERATION]: 'true',
   [AssistantProperties.FEATURE_AUTOSPEAKDEFAULT]: 'false',
   [AssistantProperties.FEATURE_TITLEGENERATION]: 'true',
+  [AssistantProperties.PLANTUML_FORMAT]: 'png',
 };
 
 export default AssistantProperties;
@@ -23,6 +23,12 @@ import Thread, {
 } from '@/store/to/thread';
 import Assistant from '@/store/to/assistant';
 
+/**
+ * The run stream request was rejected, so no run was started.
+ */
+export class RunStreamUnavailableError extends Error {
+}
+
 class AssistantService {
 
   async retrieveGPTModels() {
@@ -66,8 +72,9 @@ class AssistantService {
     return result.data;
   }
 
-  getAssistantImageUrl(imageFile: string) {
-    return `/api/v1/assistants/images/${imageFile}`;
+  getAssistantImageUrl(imageFile: string, width?: number) {
+    const url = `/api/v1/assistants/images/${imageFile}`;
+    return width ? `${url}?w=${width}` : url;
   }
 
   async uploadAssistantImage(file: any) {
@@ -104,6 +111,58 @@ class AssistantService {
     return result.data;
   }
 
+  /**
+   * Runs the conversation and calls the handler with each server-sent event as it arrives.
+   * Resolves when the run stream ends. Throws a RunStreamUnavailableError if the stream couldn't
+   * be opened, in which case no run has been started.
+   */
+  async streamRun(
+      threadId: string, assistantId: string, onEvent: (event: string, data: any) => void) {
+    const response = await fetch(`/api/v1/threads/${threadId}/runs/stream`, {
+      method: 'POST',
+      headers: {
+        'Content-Type': 'application/json',
+        'Accept': 'text/event-stream',
+      },
+      body: JSON.stringify({assistant_id: assistantId}),
+    });
+
+    if (!response.ok || !response.body) {
+      throw new RunStreamUnavailableError(`Error streaming run: ${response.status}`);
+    }
+
+    const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = '';
+
+    for (;;) {
+      const {done, value} = await reader.read();
+      if (done) {
+        break;
+      }
+      buffer += value.replace(/\r\n/g, '\n');
+
+      let boundary;
+      while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+        const block = buffer.substring(0, boundary);
+        buffer = buffer.substring(boundary + 2);
+
+        let event = 'message';
+        const data: Array<string> = [];
+        block.split('\n').forEach((line) => {
+          if (line.startsWith('event:')) {
+            event = line.substring(6).trim();
+          } else if (line.startsWith('data:')) {
+            data.push(line.substring(5).replace(/^ /, ''));
+          }
+        });
+
+        if (data.length > 0) {
+          onEvent(event, JSON.parse(data.join('\n')));
+        }
+      }
+    }
+  }
+
   async retrieveRun(threadId: string, runId: string): Promise<Run> {
     const result = await axios.get(`/api/v1/threads/${threadId}/runs/${runId}`);
     return result.data;
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import {Client, IFrame} from '@stomp/stompjs';
+import AssistantService from '@/service/assistant.service';
+import Run from '@/store/to/run';
+
+const FINAL_STATUSES = ['completed', 'failed', 'cancelled', 'expired', 'requires_action'];
+
+// Re-checks the run while waiting, in case a push was lost or the broker is unreachable.
+const RECHECK_INTERVAL_MS = 5000;
+// Slightly longer than the server tracks a run.
+const WATCH_TIMEOUT_MS = 16 * 60 * 1000;
+const MAX_FAILED_CHECKS = 3;
+
+const assistantService = new AssistantService();
+
+/**
+ * Follows a run through the status changes the backend pushes to
+ * /topic/threads/{threadId}/runs/{runId}, instead of polling the run at a high rate.
+ */
+class RunStatusService {
+
+  /**
+   * Resolves with the run as soon as it reaches a final status.
+   *
+   * The run is also re-checked every few seconds, which covers lost pushes and stands in for the
+   * pushes while the WebSocket connection is down. Rejects if the server stops tracking the run,
+   * if the run cannot be retrieved repeatedly, or if it does not finish in time.
+   */
+  watchRun(threadId: string, runId: string): Promise<Run> {
+    return new Promise((resolve, reject) => {
+      let settled = false;
+      let failedChecks = 0;
+      let polling = false;
+
+      const client = new Client({
+        brokerURL: `ws://${window.location.host}/ws`,
+        reconnectDelay: 0,
+        heartbeatIncoming: 4000,
+        heartbeatOutgoing: 4000,
+      });
+
+      const settle = (run?: Run, error?: unknown) => {
+        if (settled) return;
+        settled = true;
+        window.clearInterval(recheck);
+        window.clearTimeout(deadline);
+        client.deactivate();
+        if (run) {
+          resolve(run);
+        } else {
+          reject(error);
+        }
+      };
+
+      const isFinal = (run: Run) => !!run.status && FINAL_STATUSES.includes(run.status);
+
+      const check = async () => {
+        try {
+          const run = await assistantService.retrieveRun(threadId, runId);
+          failedChecks = 0;
+          if (isFinal(run)) {
+            settle(run);
+          }
+          return run;
+        } catch (e) {
+          if (++failedChecks >= MAX_FAILED_CHECKS) {
+            settle(undefined, e);
+          }
+          return undefined;
+        }
+      };
+
+      const recheck = window.setInterval(check, RECHECK_INTERVAL_MS);
+      const deadline = window.setTimeout(() => {
+        settle(undefined, new Error(`Run ${runId} did not finish in time`));
+      }, WATCH_TIMEOUT_MS);
+
+      client.onConnect = async () => {
+        client.subscribe(`/topic/threads/${threadId}/runs/${runId}`, async message => {
+          if (!message.body) return;
+
+          const {type, run} = JSON.parse(message.body);
+          if (type === 'RUN_TRACKING_STOPPED') {
+            // The run may still have finished in the meantime.
+            const current = await check();
+            if (!current || !isFinal(current)) {
+              settle(undefined, new Error(`Server stopped tracking run ${runId}`));
+            }
+          } else if (isFinal(run)) {
+            settle(run);
+          }
+        });
+
+        // The run may have finished before the subscription was active. This also starts
+        // tracking on the server if it doesn't know the run yet.
+        await check();
+      };
+
+      // Without the broker, the periodic re-check takes over.
+      const fallBackToPolling = () => {
+        if (settled || polling) return;
+        polling = true;
+        console.warn(`Lost run status updates for run ${runId}, polling instead.`);
+        client.deactivate();
+        check();
+      };
+      client.onStompError = (frame: IFrame) => {
+        console.warn('Broker reported error: ' + frame.headers['message']);
+        fallBackToPolling();
+      };
+      client.onWebSocketError = fallBackToPolling;
+      client.onWebSocketClose = fallBackToPolling;
+
+      client.activate();
+    });
+  }
+}
+
+export default RunStatusService;
@@ -52,23 +52,52 @@ class TtsService {
     }
   }
 
-  async speakElevenlabs(text: string, assistant: Assistant) {
-    try {
-      const result = await axios.post(
-          `/api/v1/tts/stream`,
-          {text, assistantId: assistant.id},
-          {
-            timeout: 50000,
-            headers: {
-              'Content-Type': 'application/json',
-            },
-            responseType: 'blob',
-          });
-      return result.data;
-    } catch (error) {
-      console.error('Error submitting prompt: ', error);
+  /**
+   * Requests ElevenLabs speech and returns an audio element that starts playing with the first
+   * received chunk. Browsers without MediaSource support for MP3 play it after the download.
+   */
+  async streamElevenlabs(text: string, assistant: Assistant, signal: AbortSignal) {
+    const response = await fetch('/api/v1/tts/stream', {
+      method: 'POST',
+      headers: {
+        'Content-Type': 'application/json',
+      },
+      body: JSON.stringify({text, assistantId: assistant.id}),
+      signal,
+    });
+
+    if (!response.ok || !response.body) {
+      throw new Error(`Error fetching audio stream: ${response.status}`);
+    }
+
+    if (!window.MediaSource || !MediaSource.isTypeSupported('audio/mpeg')) {
+      return new Audio(URL.createObjectURL(await response.blob()));
     }
-    return null;
+
+    const mediaSource = new MediaSource();
+    const reader = response.body.getReader();
+
+    mediaSource.addEventListener('sourceopen', async () => {
+      const sourceBuffer = mediaSource.addSourceBuffer('audio/mpeg');
+      try {
+        for (;;) {
+          const {done, value} = await reader.read();
+          if (done) {
+            break;
+          }
+          sourceBuffer.appendBuffer(value);
+          await new Promise((resolve) => sourceBuffer.addEventListener('updateend', resolve, {once: true}));
+        }
+        mediaSource.endOfStream();
+      } catch (error) {
+        // Stopping playback aborts the request, which is not an error.
+        if ((error as Error).name !== 'AbortError') {
+          console.error('Error streaming audio: ', error);
+        }
+      }
+    }, {once: true});
+
+    return new Audio(URL.createObjectURL(mediaSource));
   }
 
   async speakSpeechAPI(text: string, assistant: Assistant) {
@@ -16,13 +16,15 @@
 
 import {defineStore} from 'pinia';
 import HighlightingService from '@/service/highlighting.service';
-import AssistantService from '@/service/assistant.service';
-import Thread, {ThreadMessage} from '@/store/to/thread';
+import AssistantService, {RunStreamUnavailableError} from '@/service/assistant.service';
+import RunStatusService from '@/service/run-status.service';
+import Thread, {ParsedThreadMessage, ThreadMessage} from '@/store/to/thread';
 import Assistant from '@/store/to/assistant';
 import AssistantProperties, {TTSType} from '@/service/assistant.properties';
 
 const highlightingService = new HighlightingService();
 const assistantService = new AssistantService();
+const runStatusService = new RunStatusService();
 
 export const useChatStore = defineStore('chat', {
   state: () => {
@@ -101,22 +103,81 @@ export const useChatStore = defineStore('chat', {
       this.threadDeleteMode = false;
     },
     async runConversationAndHandleResults() {
-      let pollingInterval: undefined | number = undefined;
       try {
         const run = await assistantService.runConversation(this.threadId,
             this.selectedAssistant.id);
-        pollingInterval = setInterval(async () => {
-          console.log('Polling for run status');
-          const runT = await assistantService.retrieveRun(this.threadId, run.id);
-          if (runT.status === 'completed') {
-            console.log('Run completed');
-            clearInterval(pollingInterval);
-            await this.handleResult();
-          }
-        }, 2000);
+        const finishedRun = await runStatusService.watchRun(this.threadId, run.id);
+        if (finishedRun.status === 'completed') {
+          console.log('Run completed');
+          await this.handleResult();
+        } else {
+          this.updateStatus(`Run ${finishedRun.status}`, 'error');
+        }
       } catch (e) {
         console.error('Error while handling result', e);
-        if (pollingInterval) clearInterval(pollingInterval);
+        this.updateStatus('Error while waiting for the reply', 'error');
+      }
+    },
+
+    /**
+     * Streams the run and shows the reply while it is generated. Completed parts of a message are
+     * shown as HTML, the rest as plain text, until the message is replaced by its post-processed
+     * version. Falls back to following the run status only if the stream request itself fails;
+     * once the stream is open, the run exists and must not be started a second time.
+     */
+    async streamConversationAndHandleResults() {
+      let streamedMessageId = '';
+      let streamedHtml = '';
+      let pendingText = '';
+      let receivedReply = false;
+      let runFailed = false;
+
+      const showStreamedMessage = () => {
+        this.threadMessages[this.maxMessageIndex] = new ThreadMessage(streamedMessageId,
+            'assistant', streamedHtml + this.encodePrompt(pendingText));
+      };
+
+      try {
+        await assistantService.streamRun(this.threadId, this.selectedAssistant.id,
+            (event, data) => {
+              if (event === 'delta') {
+                if (data.messageId !== streamedMessageId) {
+                  if (streamedMessageId) {
+                    this.threadMessages.push(new ThreadMessage('', 'assistant', ''));
+                  }
+                  streamedMessageId = data.messageId;
+                  streamedHtml = '';
+                  pendingText = '';
+                  this.updateStatus('', '');
+                }
+                receivedReply = true;
+                pendingText += data.text;
+                showStreamedMessage();
+              } else if (event === 'block') {
+                streamedHtml += highlightingService.replaceCodeContent(data.html);
+                pendingText = data.pending;
+                showStreamedMessage();
+              } else if (event === 'message') {
+                receivedReply = true;
+                this.applyParsedMessage(data.message, data);
+              } else if (event === 'run' &&
+                  ['failed', 'cancelled', 'expired'].includes(data.status)) {
+                runFailed = true;
+                this.updateStatus(`Run ${data.status}`, 'error');
+              }
+            });
+
+        if (!receivedReply && !runFailed) {
+          this.updateStatus('The run ended without a reply', 'error');
+        }
+      } catch (e) {
+        if (e instanceof RunStreamUnavailableError) {
+          console.warn('Run stream not available, following the run status instead', e);
+          await this.runConversationAndHandleResults();
+        } else {
+          console.error('Error while streaming run', e);
+          this.updateStatus('Error while streaming the reply', 'error');
+        }
       }
     },
 
@@ -130,7 +191,7 @@ export const useChatStore = defineStore('chat', {
 
       this.updateStatus('Thinking...', 'running');
 
-      await this.runConversationAndHandleResults();
+      await this.streamConversationAndHandleResults();
     },
     getThreadMessageTextContent(threadMessage: ThreadMessage) {
       if (threadMessage.content && threadMessage.content.length > 0 &&
@@ -144,30 +205,32 @@ export const useChatStore = defineStore('chat', {
       if (threadMessage) {
         const parsedThreadMessage = await assistantService.postprocessMessage(this.threadId,
             threadMessage.id);
+        await this.applyParsedMessage(threadMessage, parsedThreadMessage);
+      }
+    },
+    async applyParsedMessage(threadMessage: ThreadMessage,
+                             parsedThreadMessage: ParsedThreadMessage) {
+      const content = parsedThreadMessage.parsed_content;
 
-        if (threadMessage.content && threadMessage.content.length > 0 &&
-            threadMessage.content[0].text) {
-          const content = parsedThreadMessage.parsed_content;
+      if (content && threadMessage.content && threadMessage.content.length > 0 &&
+          threadMessage.content[0].text) {
+        threadMessage.content[0].text.value = highlightingService.replaceCodeContent(content);
+      }
 
-          if (content) {
-            const highlightedContent = highlightingService.replaceCodeContent(content);
-            threadMessage.content[0].text.value = highlightedContent;
+      this.threadMessages[this.threadMessages.length - 1] = threadMessage;
 
-            // Get text content of last user message
-            const lastUserMessage = this.threadMessages[this.threadMessages.length - 2];
-            const lastUserMessageContent = this.getThreadMessageTextContent(lastUserMessage);
+      if (content) {
+        // Get text content of last user message
+        const lastUserMessage = this.threadMessages[this.threadMessages.length - 2];
+        const lastUserMessageContent = this.getThreadMessageTextContent(lastUserMessage);
 
-            await this.generateThreadTitle(this.threadId, lastUserMessageContent, content);
-          }
-        }
-
-        this.threadMessages[this.threadMessages.length - 1] = threadMessage;
+        await this.generateThreadTitle(this.threadId, lastUserMessageContent, content);
+      }
 
-        this.threads = await assistantService.retrieveThreads();
-        console.log('Threads', this.threads);
+      this.threads = await assistantService.retrieveThreads();
+      console.log('Threads', this.threads);
 
-        this.updateStatus('', '');
-      }
+      this.updateStatus('', '');
     },
     async runConversation() {
       await assistantService.runConversation(this.threadId, this.selectedAssistant.id);
@@ -187,8 +250,8 @@ export const useChatStore = defineStore('chat', {
       await assistantService.deleteThread(threadId);
       await this.retrieveThreads();
     },
-    getAssistantImageUrl(imageUrl: string) {
-      return assistantService.getAssistantImageUrl(imageUrl);
+    getAssistantImageUrl(imageUrl: string, width?: number) {
+      return assistantService.getAssistantImageUrl(imageUrl, width);
     },
     // ************** Old code *****************
 
@@ -16,8 +16,11 @@
 
 package com.talkforgeai.service;
 
+import com.talkforgeai.service.http.HttpPayloadLoggingInterceptor;
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.properties.HttpClientProperties;
+import com.talkforgeai.service.properties.HttpLoggingProperties;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -28,12 +31,18 @@ public class OkHttpClientConfiguration {
     public static final int TIMEOUT_MS = 1000 * 60 * 5;
 
     @Bean
-    public OkHttpClient createOkHttpClient() {
+    public OkHttpClient createOkHttpClient(HttpLoggingProperties httpLoggingProperties) {
         return new OkHttpClient.Builder()
                 .callTimeout(TIMEOUT_MS, MILLISECONDS)
                 .readTimeout(TIMEOUT_MS, MILLISECONDS)
                 .writeTimeout(TIMEOUT_MS, MILLISECONDS)
-                .addInterceptor(new HttpLoggingInterceptor().setLevel(HttpLoggingInterceptor.Level.BODY))
+                .addInterceptor(new HttpPayloadLoggingInterceptor(httpLoggingProperties))
                 .build();
     }
+
+    @Bean
+    public UpstreamHttpClients upstreamHttpClients(OkHttpClient baseClient,
+                                                   HttpClientProperties httpClientProperties) {
+        return new UpstreamHttpClients(baseClient, httpClientProperties);
+    }
 }
@@ -16,13 +16,20 @@
 
 package com.talkforgeai.service;
 
+import com.talkforgeai.service.properties.ChatStreamProperties;
 import com.talkforgeai.service.properties.ElevenlabsProperties;
+import com.talkforgeai.service.properties.HttpClientProperties;
+import com.talkforgeai.service.properties.HttpLoggingProperties;
 import com.talkforgeai.service.properties.OpenAIProperties;
+import com.talkforgeai.service.properties.PlantUMLProperties;
+import com.talkforgeai.service.properties.WhisperProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@EnableConfigurationProperties({OpenAIProperties.class, ElevenlabsProperties.class})
+@EnableConfigurationProperties({OpenAIProperties.class, ElevenlabsProperties.class,
+    HttpLoggingProperties.class, HttpClientProperties.class, PlantUMLProperties.class,
+    WhisperProperties.class, ChatStreamProperties.class})
 public class ServiceConfiguration {
 
 }
@@ -17,8 +17,10 @@
 package com.talkforgeai.service;
 
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -29,9 +31,30 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class SpringAsyncConfiguration implements AsyncConfigurer {
 
+    private static final long TASK_TERMINATION_TIMEOUT = 10_000;
+
+    private final boolean virtualThreads;
+
+    public SpringAsyncConfiguration(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Runs each task on a virtual thread of its own if virtual threads are enabled, otherwise on a
+     * small pool. Tasks mostly wait for upstream calls, so with virtual threads a slow run no
+     * longer holds up the others.
+     */
     @Bean(name = "sseTaskExecutor")
     @Override
     public Executor getAsyncExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("SseLookup-");
+            executor.setVirtualThreads(true);
+            executor.setTaskTerminationTimeout(TASK_TERMINATION_TIMEOUT);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(2);
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports virtual threads that are pinned to their carrier thread, typically by blocking inside a
+ * {@code synchronized} block, for longer than a threshold.
+ * <p>
+ * Pinned threads are recorded with JFR's {@code jdk.VirtualThreadPinned} event, logged with the
+ * blocking stack and counted in the {@code jvm.threads.virtual.pinned} timer. Only active when
+ * virtual threads are enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final int STACK_DEPTH = 12;
+
+  private final Duration threshold;
+  private final Timer pinned;
+  private RecordingStream recordingStream;
+
+  public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+      @Value("${talkforgeai.diagnostics.pinning-threshold:20ms}") Duration threshold) {
+    this.threshold = threshold;
+    this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+        .description("Time virtual threads spent pinned to their carrier thread")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    recordingStream = new RecordingStream();
+    recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+    recordingStream.startAsync();
+    LOGGER.info("Reporting virtual threads pinned for more than {}.", threshold);
+  }
+
+  @PreDestroy
+  void stop() {
+    recordingStream.close();
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinned.record(event.getDuration());
+
+    String stack = event.getStackTrace() == null ? "  (no stack trace)"
+        : event.getStackTrace().getFrames().stream()
+            .limit(STACK_DEPTH)
+            .map(VirtualThreadPinningMonitor::format)
+            .collect(Collectors.joining("\n"));
+    LOGGER.warn("Virtual thread {} was pinned for {} ms:\n{}",
+        event.getThread() != null ? event.getThread().getJavaName() : "?",
+        event.getDuration().toMillis(), stack);
+  }
+
+  private static String format(RecordedFrame frame) {
+    return "  at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+        + "(" + frame.getLineNumber() + ")";
+  }
+}
@@ -16,19 +16,42 @@
 
 package com.talkforgeai.service;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebMVCAsyncConfig implements WebMvcConfigurer {
+
+    private final boolean virtualThreads;
+
+    public WebMVCAsyncConfig(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
     @Override
     public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
         configurer.setTaskExecutor(taskExecutor());
     }
 
-    public ThreadPoolTaskExecutor taskExecutor() {
+    /**
+     * Runs async request processing. Also used by controllers that write a streamed response
+     * through an emitter, so it runs on the same threads as a streamed response body would.
+     */
+    @Bean(name = "mvcTaskExecutor")
+    public AsyncTaskExecutor taskExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("MvcAsync-");
+            taskExecutor.setVirtualThreads(true);
+            return taskExecutor;
+        }
+
         ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
         taskExecutor.setCorePoolSize(5);
         taskExecutor.setMaxPoolSize(50);
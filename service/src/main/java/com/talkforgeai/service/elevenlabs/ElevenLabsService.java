@@ -17,13 +17,16 @@
 package com.talkforgeai.service.elevenlabs;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.talkforgeai.service.elevenlabs.dto.ElevenLabsApiRequest;
 import com.talkforgeai.service.elevenlabs.dto.ElevenLabsModel;
 import com.talkforgeai.service.elevenlabs.dto.ElevenLabsRequest;
 import com.talkforgeai.service.elevenlabs.dto.ElevenLabsVoicesResponse;
+import com.talkforgeai.service.http.HttpClientProfile;
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.json.JsonCodec;
 import com.talkforgeai.service.properties.ElevenlabsProperties;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import okhttp3.Headers;
 import okhttp3.MediaType;
@@ -44,10 +47,13 @@ public class ElevenLabsService {
   private static final String DEFAULT_VOICE_ID = "21m00Tcm4TlvDq8ikWAM";
   private final OkHttpClient client;
   private final ElevenlabsProperties properties;
+  private final JsonCodec jsonCodec;
 
-  public ElevenLabsService(OkHttpClient client, ElevenlabsProperties properties) {
-    this.client = client;
+  public ElevenLabsService(UpstreamHttpClients httpClients, ElevenlabsProperties properties,
+      JsonCodec jsonCodec) {
+    this.client = httpClients.get(HttpClientProfile.ELEVENLABS);
     this.properties = properties;
+    this.jsonCodec = jsonCodec;
   }
 
   public List<ElevenLabsModel> getModels() {
@@ -63,9 +69,7 @@ public class ElevenLabsService {
       if (response.isSuccessful() && response.body() != null) {
         String responseString = response.body().string();
         LOGGER.info("ElevenLabs model response: {}", responseString);
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.readValue(responseString, objectMapper.getTypeFactory()
-            .constructCollectionType(List.class, ElevenLabsModel.class));
+        return jsonCodec.readList(responseString, ElevenLabsModel.class);
       } else {
         throw new ElevenLabsException("Error fetching ElevenLabs models.");
       }
@@ -87,8 +91,7 @@ public class ElevenLabsService {
       if (response.isSuccessful() && response.body() != null) {
         String responseString = response.body().string();
         LOGGER.info("ElevenLabs model response: {}", responseString);
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.readValue(responseString, ElevenLabsVoicesResponse.class);
+        return jsonCodec.read(responseString, ElevenLabsVoicesResponse.class);
       } else {
         throw new ElevenLabsException("Error fetching ElevenLabs models.");
       }
@@ -97,9 +100,11 @@ public class ElevenLabsService {
     }
   }
 
-  public byte[] stream(ElevenLabsRequest ttsRequest) {
-    ObjectMapper objectMapper = new ObjectMapper();
-
+  /**
+   * Starts the speech synthesis and returns the audio as it arrives from ElevenLabs. The caller
+   * must close the stream; closing it early cancels the upstream response.
+   */
+  public InputStream stream(ElevenLabsRequest ttsRequest) {
     try {
       ElevenLabsApiRequest apiRequest = new ElevenLabsApiRequest(
           ttsRequest.text(),
@@ -107,7 +112,7 @@ public class ElevenLabsService {
           new ElevenLabsApiRequest.VoiceSettings()
       );
 
-      String message = objectMapper.writeValueAsString(apiRequest);
+      String message = jsonCodec.write(apiRequest);
 
       Headers headers = createHeaderBuilder()
           .add("accept", "audio/mpeg")
@@ -121,18 +126,16 @@ public class ElevenLabsService {
           .post(body)
           .build();
 
-      try (Response response = client.newCall(request).execute()) {
-        if (response.isSuccessful()) {
-          return response.body().bytes();
-        } else {
-          throw new ElevenLabsException("Error fetching audio stream.");
-        }
-      } catch (IOException e) {
-        throw new ElevenLabsException("Error fetching audio stream.", e);
+      Response response = client.newCall(request).execute();
+      if (!response.isSuccessful() || response.body() == null) {
+        response.close();
+        throw new ElevenLabsException("Error fetching audio stream: " + response.code());
       }
-
+      return response.body().byteStream();
     } catch (JsonProcessingException e) {
       throw new ElevenLabsException("Error processing JSON.", e);
+    } catch (IOException e) {
+      throw new ElevenLabsException("Error fetching audio stream.", e);
     }
   }
 
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.http;
+
+import com.talkforgeai.service.properties.HttpLoggingProperties;
+import com.talkforgeai.service.properties.HttpLoggingProperties.Mode;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replacement for OkHttp's {@code HttpLoggingInterceptor} that is safe to run in production.
+ * <p>
+ * Bodies are only logged when their content type is allow-listed and then at most
+ * {@link HttpLoggingProperties#maxBodyBytes()} bytes of them. Responses are peeked, not consumed,
+ * so streamed payloads like TTS audio or Whisper uploads are never buffered. Credentials and
+ * cookies are redacted from the logged headers.
+ */
+public class HttpPayloadLoggingInterceptor implements Interceptor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpPayloadLoggingInterceptor.class);
+  private static final Set<String> REDACTED_HEADERS = Set.of("authorization", "xi-api-key",
+      "x-api-key", "cookie", "set-cookie");
+
+  private final HttpLoggingProperties properties;
+
+  public HttpPayloadLoggingInterceptor(HttpLoggingProperties properties) {
+    this.properties = properties;
+  }
+
+  @NotNull
+  @Override
+  public Response intercept(@NotNull Chain chain) throws IOException {
+    Request request = chain.request();
+    Mode mode = properties.mode();
+
+    if (mode == Mode.NONE || !LOGGER.isInfoEnabled()) {
+      return chain.proceed(request);
+    }
+
+    boolean logBodies = mode == Mode.BODY || (mode == Mode.SAMPLED_BODY
+        && ThreadLocalRandom.current().nextDouble() < properties.sampleRate());
+
+    LOGGER.info("--> {} {}{}", request.method(), request.url(), formatHeaders(request.headers()));
+    if (logBodies) {
+      logRequestBody(request.body());
+    }
+
+    long startNs = System.nanoTime();
+    Response response;
+    try {
+      response = chain.proceed(request);
+    } catch (IOException e) {
+      LOGGER.info("<-- HTTP FAILED {} {}: {}", request.method(), request.url(), e.toString());
+      throw e;
+    }
+    long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+
+    LOGGER.info("<-- {} {} ({}ms){}", response.code(), request.url(), tookMs,
+        formatHeaders(response.headers()));
+    if (logBodies) {
+      logResponseBody(response);
+    }
+
+    return response;
+  }
+
+  private void logRequestBody(RequestBody body) throws IOException {
+    if (body == null) {
+      return;
+    }
+
+    long contentLength = body.contentLength();
+    if (!isLoggable(body.contentType()) || body.isDuplex() || body.isOneShot()
+        || contentLength < 0 || contentLength > properties.maxBodyBytes()) {
+      LOGGER.info("--> body omitted ({}, {} bytes)", body.contentType(), contentLength);
+      return;
+    }
+
+    Buffer buffer = new Buffer();
+    body.writeTo(buffer);
+    LOGGER.info("--> body: {}", buffer.readString(charsetOf(body.contentType())));
+  }
+
+  private void logResponseBody(Response response) throws IOException {
+    ResponseBody body = response.body();
+    if (body == null) {
+      return;
+    }
+
+    long contentLength = body.contentLength();
+    if (!isLoggable(body.contentType())) {
+      LOGGER.info("<-- body omitted ({}, {} bytes)", body.contentType(), contentLength);
+      return;
+    }
+
+    // peekBody() copies at most maxBodyBytes and leaves the original body untouched for the caller.
+    ResponseBody peeked = response.peekBody(properties.maxBodyBytes());
+    boolean truncated = contentLength < 0 || contentLength > properties.maxBodyBytes();
+    LOGGER.info("<-- body{}: {}", truncated ? " (possibly truncated)" : "", peeked.string());
+  }
+
+  private boolean isLoggable(MediaType contentType) {
+    if (contentType == null) {
+      return false;
+    }
+
+    String type = contentType.type().toLowerCase(Locale.ROOT);
+    String subtype = contentType.subtype().toLowerCase(Locale.ROOT);
+
+    return properties.bodyContentTypes().stream()
+        .map(allowed -> allowed.toLowerCase(Locale.ROOT))
+        .anyMatch(allowed -> allowed.equals(type + "/" + subtype)
+            || allowed.equals(type + "/*"));
+  }
+
+  private String formatHeaders(Headers headers) {
+    if (headers.size() == 0) {
+      return "";
+    }
+
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < headers.size(); i++) {
+      String name = headers.name(i);
+      boolean redacted = REDACTED_HEADERS.contains(name.toLowerCase(Locale.ROOT));
+      builder.append("\n  ").append(name).append(": ")
+          .append(redacted ? "<redacted>" : headers.value(i));
+    }
+    return builder.toString();
+  }
+
+  private static Charset charsetOf(MediaType contentType) {
+    return contentType != null
+        ? contentType.charset(StandardCharsets.UTF_8)
+        : StandardCharsets.UTF_8;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.http;
+
+import com.talkforgeai.service.properties.HttpClientProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One {@link OkHttpClient} per {@link HttpClientProfile}.
+ * <p>
+ * All clients are derived from the shared base client, so they reuse its interceptors and the
+ * dispatcher's thread pool, but each has its own connection pool, dispatcher limits and timeouts.
+ * A slow TTS call therefore cannot exhaust the connections used for assistant API calls.
+ */
+public class UpstreamHttpClients implements MeterBinder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(UpstreamHttpClients.class);
+
+  private final Map<HttpClientProfile, OkHttpClient> clients = new EnumMap<>(
+      HttpClientProfile.class);
+  private final Map<HttpClientProfile, AtomicInteger> activeCalls = new EnumMap<>(
+      HttpClientProfile.class);
+
+  public UpstreamHttpClients(OkHttpClient baseClient, HttpClientProperties properties) {
+    for (HttpClientProfile profile : HttpClientProfile.values()) {
+      AtomicInteger active = new AtomicInteger();
+      activeCalls.put(profile, active);
+      clients.put(profile, createClient(baseClient, properties.client(profile), active));
+      LOGGER.info("Configured HTTP client '{}': {}", profile, properties.client(profile));
+    }
+  }
+
+  public OkHttpClient get(HttpClientProfile profile) {
+    return clients.get(profile);
+  }
+
+  @Override
+  public void bindTo(@NotNull MeterRegistry registry) {
+    clients.forEach((profile, client) -> {
+      String name = profile.name().toLowerCase(Locale.ROOT);
+      ConnectionPool pool = client.connectionPool();
+      Dispatcher dispatcher = client.dispatcher();
+
+      Gauge.builder("okhttp.pool.connections", pool, ConnectionPool::connectionCount)
+          .tag("client", name).tag("state", "total")
+          .register(registry);
+      Gauge.builder("okhttp.pool.connections", pool, ConnectionPool::idleConnectionCount)
+          .tag("client", name).tag("state", "idle")
+          .register(registry);
+      Gauge.builder("okhttp.dispatcher.calls", dispatcher, Dispatcher::runningCallsCount)
+          .tag("client", name).tag("state", "running")
+          .register(registry);
+      Gauge.builder("okhttp.dispatcher.calls", dispatcher, Dispatcher::queuedCallsCount)
+          .tag("client", name).tag("state", "queued")
+          .register(registry);
+      Gauge.builder("okhttp.calls.active", activeCalls.get(profile), AtomicInteger::get)
+          .tag("client", name)
+          .description("Calls waiting for response headers, including blocking calls")
+          .register(registry);
+    });
+  }
+
+  private OkHttpClient createClient(OkHttpClient baseClient, HttpClientProperties.Client settings,
+      AtomicInteger active) {
+    Dispatcher dispatcher = new Dispatcher(baseClient.dispatcher().executorService());
+    dispatcher.setMaxRequests(settings.maxRequests());
+    dispatcher.setMaxRequestsPerHost(settings.maxRequestsPerHost());
+
+    List<Protocol> protocols = settings.http2()
+        ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+        : List.of(Protocol.HTTP_1_1);
+
+    return baseClient.newBuilder()
+        .dispatcher(dispatcher)
+        .connectionPool(new ConnectionPool(settings.maxIdleConnections(),
+            settings.keepAlive().toMillis(), TimeUnit.MILLISECONDS))
+        .protocols(protocols)
+        .connectTimeout(settings.connectTimeout())
+        .readTimeout(settings.readTimeout())
+        .writeTimeout(settings.writeTimeout())
+        .callTimeout(settings.callTimeout())
+        .addInterceptor(chain -> {
+          active.incrementAndGet();
+          try {
+            return chain.proceed(chain.request());
+          } finally {
+            active.decrementAndGet();
+          }
+        })
+        .build();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.talkforgeai.service.elevenlabs.dto.ElevenLabsModel;
+import com.talkforgeai.service.openai.assistant.dto.Assistant;
+import com.talkforgeai.service.openai.assistant.dto.AssistantList;
+import com.talkforgeai.service.openai.assistant.dto.Message;
+import com.talkforgeai.service.openai.assistant.dto.MessageList;
+import com.talkforgeai.service.openai.assistant.dto.Run;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared JSON codec for all upstream clients.
+ * <p>
+ * {@link ObjectMapper} instances are expensive to create and their serializer caches are lost
+ * whenever a new one is built. This component owns a single mapper and hands out immutable,
+ * thread-safe {@link ObjectReader}/{@link ObjectWriter} instances that are cached per type.
+ */
+@Component
+public class JsonCodec {
+
+  private final ObjectMapper objectMapper;
+  private final ObjectWriter writer;
+  private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+  private final Map<Class<?>, ObjectReader> listReaders = new ConcurrentHashMap<>();
+
+  public JsonCodec() {
+    this(createObjectMapper());
+  }
+
+  public JsonCodec(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    this.writer = objectMapper.writer();
+
+    // Pre-build readers for the hot paths so the first streamed chunk does not pay for it.
+    List.of(OpenAIChatStreamResponse.class, Run.class, Message.class, MessageList.class,
+            Assistant.class, AssistantList.class)
+        .forEach(this::reader);
+    listReader(ElevenLabsModel.class);
+  }
+
+  public static ObjectMapper createObjectMapper() {
+    return new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  }
+
+  public ObjectMapper getObjectMapper() {
+    return objectMapper;
+  }
+
+  public ObjectReader reader(Class<?> type) {
+    return readers.computeIfAbsent(type, objectMapper::readerFor);
+  }
+
+  public ObjectReader listReader(Class<?> elementType) {
+    return listReaders.computeIfAbsent(elementType, type -> {
+      JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+      return objectMapper.readerFor(listType);
+    });
+  }
+
+  public ObjectWriter writer() {
+    return writer;
+  }
+
+  public <T> T read(String json, Class<T> type) throws JsonProcessingException {
+    return reader(type).readValue(json);
+  }
+
+  public <T> T read(InputStream json, Class<T> type) throws IOException {
+    return reader(type).readValue(json);
+  }
+
+  public <T> List<T> readList(String json, Class<T> elementType) throws JsonProcessingException {
+    return listReader(elementType).readValue(json);
+  }
+
+  public String write(Object value) throws JsonProcessingException {
+    return writer.writeValueAsString(value);
+  }
+
+}
@@ -17,7 +17,9 @@
 package com.talkforgeai.service.openai.assistant;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talkforgeai.service.http.HttpClientProfile;
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.json.JsonCodec;
 import com.talkforgeai.service.openai.assistant.dto.ApiError;
 import com.talkforgeai.service.openai.assistant.dto.Assistant;
 import com.talkforgeai.service.openai.assistant.dto.AssistantList;
@@ -41,6 +43,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -52,10 +55,13 @@ public class OpenAIAssistantService {
   public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
   private final OpenAIProperties openAIProperties;
   private final OkHttpClient client;
+  private final JsonCodec jsonCodec;
 
-  public OpenAIAssistantService(OpenAIProperties openAIProperties, OkHttpClient client) {
+  public OpenAIAssistantService(OpenAIProperties openAIProperties,
+      UpstreamHttpClients httpClients, JsonCodec jsonCodec) {
     this.openAIProperties = openAIProperties;
-    this.client = client;
+    this.client = httpClients.get(HttpClientProfile.OPENAI);
+    this.jsonCodec = jsonCodec;
   }
 
   public Assistant createAssistant(Assistant createAssistantRequest) {
@@ -139,26 +145,30 @@ public class OpenAIAssistantService {
   }
 
   private String objectToJsonString(Object object) {
-    ObjectMapper objectMapper = new ObjectMapper();
-
     try {
-      return objectMapper.writeValueAsString(object);
+      return jsonCodec.write(object);
     } catch (JsonProcessingException e) {
       throw new OpenAIException("JSON processing failed.", e);
     }
   }
 
   private <T> T executeRequest(Request request, Class<T> clazz) {
-    ObjectMapper objectMapper = new ObjectMapper();
-
     try (Response response = client.newCall(request).execute()) {
+      ResponseBody responseBody = response.body();
+
       if (response.code() != 200) {
-        ApiError error = objectMapper.readValue(response.body().string(), ApiError.class);
+        ApiError error = jsonCodec.read(responseBody.byteStream(), ApiError.class);
         throw new OpenAIException(
             "Request failed with code " + response.code() + " and message " + error.body()
-                .message(), error.body());
+                .message(), response.code(), error.body());
       }
-      return objectMapper.readValue(response.body().string(), clazz);
+
+      if (clazz == Void.class) {
+        return null;
+      }
+
+      // Decode straight from the connection, so large message lists are never copied into a String.
+      return jsonCodec.read(responseBody.byteStream(), clazz);
     } catch (IOException e) {
       throw new OpenAIException("Message creation failed.", e);
     }
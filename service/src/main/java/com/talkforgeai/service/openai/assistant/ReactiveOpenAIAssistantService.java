@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.assistant;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.assistant.dto.ApiError;
+import com.talkforgeai.service.openai.assistant.dto.Assistant;
+import com.talkforgeai.service.openai.assistant.dto.AssistantList;
+import com.talkforgeai.service.openai.assistant.dto.GptModelList;
+import com.talkforgeai.service.openai.assistant.dto.ListRequest;
+import com.talkforgeai.service.openai.assistant.dto.Message;
+import com.talkforgeai.service.openai.assistant.dto.MessageDelta;
+import com.talkforgeai.service.openai.assistant.dto.MessageList;
+import com.talkforgeai.service.openai.assistant.dto.PostMessageRequest;
+import com.talkforgeai.service.openai.assistant.dto.Run;
+import com.talkforgeai.service.openai.assistant.dto.RunConversationRequest;
+import com.talkforgeai.service.openai.assistant.dto.RunStreamEvent;
+import com.talkforgeai.service.openai.assistant.dto.Thread;
+import com.talkforgeai.service.openai.exception.OpenAIException;
+import com.talkforgeai.service.properties.OpenAIProperties;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+/**
+ * Non-blocking counterpart of {@link OpenAIAssistantService}, using the same DTOs.
+ * <p>
+ * Calls don't occupy a thread while waiting for OpenAI, so run creation, polling and message
+ * retrieval can be composed without parking a thread per request. List endpoints are also
+ * available as a {@link Flux} that follows the pagination cursors.
+ */
+@Service
+public class ReactiveOpenAIAssistantService {
+
+  /**
+   * Run states after which a run does not change without further action.
+   */
+  public static final Set<String> FINAL_RUN_STATES = Set.of("completed", "failed", "cancelled",
+      "expired", "requires_action");
+
+  private static final int MAX_RESPONSE_SIZE = (int) DataSize.ofMegabytes(16).toBytes();
+
+  private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT_TYPE =
+      new ParameterizedTypeReference<>() {
+      };
+
+  private final WebClient webClient;
+
+  private final JsonCodec jsonCodec;
+
+  public ReactiveOpenAIAssistantService(OpenAIProperties openAIProperties,
+      WebClient.Builder webClientBuilder, JsonCodec jsonCodec) {
+    this.webClient = webClientBuilder.clone()
+        .baseUrl(openAIProperties.apiUrl())
+        .defaultHeader("Authorization", "Bearer " + openAIProperties.apiKey())
+        .defaultHeader("OpenAI-Beta", "assistants=v1")
+        .codecs(codecs -> {
+          codecs.defaultCodecs().jackson2JsonDecoder(
+              new Jackson2JsonDecoder(jsonCodec.getObjectMapper(), MediaType.APPLICATION_JSON));
+          codecs.defaultCodecs().jackson2JsonEncoder(
+              new Jackson2JsonEncoder(jsonCodec.getObjectMapper(), MediaType.APPLICATION_JSON));
+          codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_SIZE);
+        })
+        .build();
+    this.jsonCodec = jsonCodec;
+  }
+
+  public Mono<Assistant> createAssistant(Assistant createAssistantRequest) {
+    return post("/assistants", createAssistantRequest, Assistant.class);
+  }
+
+  public Mono<Assistant> retrieveAssistant(String assistantId) {
+    return get(builder -> builder.path("/assistants/{id}").build(assistantId), Assistant.class);
+  }
+
+  public Mono<Assistant> modifyAssistant(String assistantId, Assistant modifiedAssistant) {
+    return post("/assistants/" + assistantId, modifiedAssistant, Assistant.class);
+  }
+
+  public Mono<Void> deleteAssistant(String assistantId) {
+    return webClient.delete()
+        .uri(builder -> builder.path("/assistants/{id}").build(assistantId))
+        .retrieve()
+        .onStatus(HttpStatusCode::isError, ReactiveOpenAIAssistantService::toException)
+        .bodyToMono(Void.class);
+  }
+
+  public Mono<AssistantList> listAssistants(ListRequest listRequest) {
+    return get(builder -> listParams(builder.path("/assistants"), listRequest).build(),
+        AssistantList.class);
+  }
+
+  /**
+   * Lists all assistants from the request's cursor on, fetching further pages as they are
+   * consumed.
+   */
+  public Flux<Assistant> listAllAssistants(ListRequest listRequest) {
+    return listAssistants(listRequest)
+        .expand(page -> Boolean.TRUE.equals(page.hasMore())
+            ? listAssistants(nextPage(listRequest, page.firstId(), page.lastId()))
+            : Mono.empty())
+        .flatMapIterable(AssistantList::data);
+  }
+
+  public Mono<Thread> createThread() {
+    return post("/threads", null, Thread.class);
+  }
+
+  public Mono<Message> postMessage(String threadId, PostMessageRequest postMessageRequest) {
+    return post("/threads/" + threadId + "/messages", postMessageRequest, Message.class);
+  }
+
+  public Mono<Message> retrieveMessage(String threadId, String messageId) {
+    return get(builder -> builder.path("/threads/{threadId}/messages/{messageId}")
+        .build(threadId, messageId), Message.class);
+  }
+
+  public Mono<MessageList> listMessages(String threadId, ListRequest listRequest) {
+    return get(builder -> listParams(builder.path("/threads/{threadId}/messages"), listRequest)
+        .build(threadId), MessageList.class);
+  }
+
+  /**
+   * Lists all messages of a thread from the request's cursor on, fetching further pages as they
+   * are consumed.
+   */
+  public Flux<Message> listAllMessages(String threadId, ListRequest listRequest) {
+    return listMessages(threadId, listRequest)
+        .expand(page -> page.hasMore()
+            ? listMessages(threadId, nextPage(listRequest, page.firstId(), page.lastId()))
+            : Mono.empty())
+        .flatMapIterable(MessageList::data);
+  }
+
+  public Mono<Run> runConversation(String threadId,
+      RunConversationRequest runConversationRequest) {
+    return post("/threads/" + threadId + "/runs", runConversationRequest, Run.class);
+  }
+
+  /**
+   * Creates a run with streaming enabled and emits its events as they arrive. The flux completes
+   * with the {@code done} event; an {@code error} event terminates it with an
+   * {@link OpenAIException}. Cancelling the subscription closes the upstream connection.
+   */
+  public Flux<RunStreamEvent> streamRun(String threadId,
+      RunConversationRequest runConversationRequest) {
+    return webClient.post()
+        .uri("/threads/{threadId}/runs", threadId)
+        .contentType(MediaType.APPLICATION_JSON)
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .bodyValue(runConversationRequest.streaming())
+        .retrieve()
+        .onStatus(HttpStatusCode::isError, ReactiveOpenAIAssistantService::toException)
+        .bodyToFlux(EVENT_TYPE)
+        .takeWhile(event -> !"done".equals(event.event()))
+        .handle(this::toRunStreamEvent);
+  }
+
+  public Mono<Run> retrieveRun(String threadId, String runId) {
+    return get(builder -> builder.path("/threads/{threadId}/runs/{runId}")
+        .build(threadId, runId), Run.class);
+  }
+
+  /**
+   * Polls a run until it reaches one of the {@link #FINAL_RUN_STATES} and emits it in that state.
+   */
+  public Mono<Run> awaitRun(String threadId, String runId, Duration pollInterval) {
+    return retrieveRun(threadId, runId)
+        .expand(run -> FINAL_RUN_STATES.contains(run.status())
+            ? Mono.empty()
+            : Mono.delay(pollInterval).then(retrieveRun(threadId, runId)))
+        .last();
+  }
+
+  public Mono<GptModelList> retrieveModels() {
+    return get(builder -> builder.path("/models").build(), GptModelList.class);
+  }
+
+  private <T> Mono<T> get(Function<UriBuilder, URI> uri, Class<T> type) {
+    return webClient.get()
+        .uri(uri)
+        .retrieve()
+        .onStatus(HttpStatusCode::isError, ReactiveOpenAIAssistantService::toException)
+        .bodyToMono(type);
+  }
+
+  private <T> Mono<T> post(String path, Object body, Class<T> type) {
+    WebClient.RequestBodySpec request = webClient.post()
+        .uri(path)
+        .contentType(MediaType.APPLICATION_JSON);
+
+    return (body != null ? request.bodyValue(body) : request)
+        .retrieve()
+        .onStatus(HttpStatusCode::isError, ReactiveOpenAIAssistantService::toException)
+        .bodyToMono(type);
+  }
+
+  private void toRunStreamEvent(ServerSentEvent<String> event,
+      SynchronousSink<RunStreamEvent> sink) {
+    String name = event.event();
+    String data = event.data();
+
+    if (name == null || data == null) {
+      return;
+    }
+
+    try {
+      if ("error".equals(name)) {
+        sink.error(new OpenAIException("Run stream failed",
+            jsonCodec.read(data, ApiError.ApiErrorBody.class)));
+      } else if ("thread.message.delta".equals(name)) {
+        MessageDelta delta = jsonCodec.read(data, MessageDelta.class);
+        String text = delta.text();
+        if (!text.isEmpty()) {
+          sink.next(new RunStreamEvent.TextDelta(delta.id(), text));
+        }
+      } else if ("thread.message.created".equals(name)) {
+        sink.next(new RunStreamEvent.MessageCreated(jsonCodec.read(data, Message.class)));
+      } else if ("thread.message.completed".equals(name)) {
+        sink.next(new RunStreamEvent.MessageCompleted(jsonCodec.read(data, Message.class)));
+      } else if (name.startsWith("thread.run.") && !name.startsWith("thread.run.step.")) {
+        sink.next(new RunStreamEvent.RunUpdated(name, jsonCodec.read(data, Run.class)));
+      }
+    } catch (JsonProcessingException e) {
+      sink.error(new OpenAIException("Unreadable run stream event " + name, e));
+    }
+  }
+
+  private static UriBuilder listParams(UriBuilder builder, ListRequest listRequest) {
+    return builder
+        .queryParamIfPresent("limit", Optional.ofNullable(listRequest.limit()))
+        .queryParamIfPresent("order", Optional.ofNullable(listRequest.order()))
+        .queryParamIfPresent("after", Optional.ofNullable(listRequest.after()))
+        .queryParamIfPresent("before", Optional.ofNullable(listRequest.before()));
+  }
+
+  /**
+   * Pages backwards with {@code before} if the request started with a {@code before} cursor,
+   * otherwise forwards with {@code after}.
+   */
+  private static ListRequest nextPage(ListRequest listRequest, String firstId, String lastId) {
+    if (listRequest.before() != null && listRequest.after() == null) {
+      return new ListRequest(listRequest.limit(), listRequest.order(), null, firstId);
+    }
+    return new ListRequest(listRequest.limit(), listRequest.order(), lastId, null);
+  }
+
+  private static Mono<? extends Throwable> toException(ClientResponse response) {
+    int code = response.statusCode().value();
+
+    return response.bodyToMono(ApiError.class)
+        .<Throwable>map(error -> new OpenAIException("Request failed with code " + code
+            + " and message " + (error.body() != null ? error.body().message() : null),
+            code, error.body()))
+        .onErrorResume(e -> Mono.just(new OpenAIException("Request failed with code " + code, e)))
+        .defaultIfEmpty(new OpenAIException("Request failed with code " + code, (Throwable) null));
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.assistant.dto;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Payload of a {@code thread.message.delta} event of a streamed run.
+ */
+public record MessageDelta(String id, Delta delta) {
+
+  /**
+   * Concatenates the text of all content parts of this delta.
+   */
+  public String text() {
+    if (delta == null || delta.content() == null) {
+      return "";
+    }
+    return delta.content().stream()
+        .map(ContentDelta::text)
+        .filter(Objects::nonNull)
+        .map(Message.ContentItem.TextContent::value)
+        .filter(Objects::nonNull)
+        .collect(Collectors.joining());
+  }
+
+  public record Delta(List<ContentDelta> content) {
+
+  }
+
+  public record ContentDelta(Integer index, String type, Message.ContentItem.TextContent text) {
+
+  }
+}
@@ -16,7 +16,18 @@
 
 package com.talkforgeai.service.openai.assistant.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-public record RunConversationRequest(@JsonProperty("assistant_id") String assistantId) {
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RunConversationRequest(@JsonProperty("assistant_id") String assistantId,
+                                     Boolean stream) {
+
+    public RunConversationRequest(String assistantId) {
+        this(assistantId, null);
+    }
+
+    public RunConversationRequest streaming() {
+        return new RunConversationRequest(assistantId, true);
+    }
 }
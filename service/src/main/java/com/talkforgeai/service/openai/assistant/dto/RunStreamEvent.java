@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.assistant.dto;
+
+/**
+ * An event of a streamed run, as emitted by
+ * {@link com.talkforgeai.service.openai.assistant.ReactiveOpenAIAssistantService#streamRun}.
+ * Run step events are not exposed.
+ */
+public sealed interface RunStreamEvent {
+
+  /**
+   * A {@code thread.run.*} event. The event name tells the transition, e.g.
+   * {@code thread.run.completed}.
+   */
+  record RunUpdated(String event, Run run) implements RunStreamEvent {
+
+  }
+
+  /**
+   * The assistant started a new message. Its content is still empty.
+   */
+  record MessageCreated(Message message) implements RunStreamEvent {
+
+  }
+
+  /**
+   * Text appended to the message with the given id.
+   */
+  record TextDelta(String messageId, String text) implements RunStreamEvent {
+
+  }
+
+  /**
+   * The message is complete and has its final content.
+   */
+  record MessageCompleted(Message message) implements RunStreamEvent {
+
+  }
+}
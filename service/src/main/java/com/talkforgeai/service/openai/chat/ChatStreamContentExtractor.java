@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.chat;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+
+/**
+ * Reads {@code choices[0].delta.content} from a chat completion chunk with a streaming parser.
+ * <p>
+ * Nothing else of the chunk is bound, and parsing stops as soon as the content is found. This
+ * avoids creating the DTO graph for every token of a streamed response. Thread-safe.
+ */
+public class ChatStreamContentExtractor {
+
+  private final JsonFactory jsonFactory;
+
+  public ChatStreamContentExtractor(JsonFactory jsonFactory) {
+    this.jsonFactory = jsonFactory;
+  }
+
+  /**
+   * Returns the content delta of the first choice, or {@code null} if the chunk has none.
+   */
+  public String extractContent(String chunkJson) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(chunkJson)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT
+          || !moveToField(parser, "choices")
+          || parser.nextToken() != JsonToken.START_ARRAY
+          || parser.nextToken() != JsonToken.START_OBJECT
+          || !moveToField(parser, "delta")
+          || parser.nextToken() != JsonToken.START_OBJECT
+          || !moveToField(parser, "content")) {
+        return null;
+      }
+      return parser.nextToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+    }
+  }
+
+  /**
+   * Skips the fields of the current object up to the one with the given name. The parser is then
+   * positioned on that field name.
+   */
+  private static boolean moveToField(JsonParser parser, String name) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      if (name.equals(parser.currentName())) {
+        return true;
+      }
+      parser.nextToken();
+      parser.skipChildren();
+    }
+    return false;
+  }
+}
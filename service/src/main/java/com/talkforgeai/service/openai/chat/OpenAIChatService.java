@@ -17,11 +17,15 @@
 package com.talkforgeai.service.openai.chat;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talkforgeai.service.http.HttpClientProfile;
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatMessage;
 import com.talkforgeai.service.openai.chat.dto.OpenAIChatRequest;
 import com.talkforgeai.service.openai.chat.dto.OpenAIChatResponse;
-import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse.StreamResponseChoice;
 import com.talkforgeai.service.openai.exception.OpenAIException;
+import com.talkforgeai.service.properties.ChatStreamProperties;
 import com.talkforgeai.service.properties.OpenAIProperties;
 import java.io.IOException;
 import okhttp3.Headers;
@@ -32,7 +36,6 @@ import okhttp3.RequestBody;
 import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.codec.ServerSentEvent;
@@ -50,24 +53,28 @@ public class OpenAIChatService {
   private final OkHttpClient client;
 
   private final WebClient webClient;
-
-  @Value("${server.servlet.async.timeout:10000}")
-  private long asyncTimeout;
+  private final JsonCodec jsonCodec;
+  private final ChatStreamContentExtractor contentExtractor;
+  private final ChatStreamProperties streamProperties;
 
   public OpenAIChatService(OpenAIProperties openAIProperties,
-      OkHttpClient client,
-      WebClient.Builder webClientBuilder) {
+      UpstreamHttpClients httpClients,
+      WebClient.Builder webClientBuilder,
+      JsonCodec jsonCodec,
+      ChatStreamProperties streamProperties) {
     this.openAIProperties = openAIProperties;
-    this.client = client;
+    this.client = httpClients.get(HttpClientProfile.OPENAI);
     this.webClient = webClientBuilder.build();
+    this.jsonCodec = jsonCodec;
+    this.contentExtractor = new ChatStreamContentExtractor(
+        jsonCodec.getObjectMapper().getFactory());
+    this.streamProperties = streamProperties;
   }
 
   public OpenAIChatResponse submit(OpenAIChatRequest openAIRequest) {
-    ObjectMapper objectMapper = new ObjectMapper();
-
     String message = null;
     try {
-      message = objectMapper.writeValueAsString(openAIRequest);
+      message = jsonCodec.write(openAIRequest);
       RequestBody body = RequestBody.create(message, JSON);
 
       Headers.Builder headersBuilder = new Headers.Builder();
@@ -82,7 +89,7 @@ public class OpenAIChatService {
 
       try (Response response = client.newCall(request).execute()) {
 
-        return objectMapper.readValue(response.body().string(), OpenAIChatResponse.class);
+        return jsonCodec.read(response.body().string(), OpenAIChatResponse.class);
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
@@ -92,12 +99,17 @@ public class OpenAIChatService {
     }
   }
 
-  public Flux<ServerSentEvent<OpenAIChatStreamResponse.StreamResponseChoice>> stream(
-      OpenAIChatRequest openAIRequest, ResultCallback resultCallback) {
-    LOGGER.info("Setting async timeout to {}", asyncTimeout);
+  /**
+   * Streams the completion of the request. Content tokens are coalesced into batches as
+   * configured by {@link ChatStreamProperties}, so an event may carry several tokens.
+   */
+  public Flux<ServerSentEvent<StreamResponseChoice>> stream(OpenAIChatRequest openAIRequest,
+      ResultCallback resultCallback) {
     openAIRequest.setStream(true);
 
-    LOGGER.info("Chat Stream Request Body: {}", openAIRequest.toJSON());
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Chat Stream Request Body: {}", openAIRequest.toJSON());
+    }
 
     String uri = openAIProperties.chatUrl();
     HttpHeaders headers = new HttpHeaders();
@@ -110,9 +122,7 @@ public class OpenAIChatService {
       headers.add("Authorization", "Bearer " + openAIProperties.apiKey());
     }
 
-    LOGGER.info("Chat Stream Request Headers: {}", headers);
-
-    return webClient.post()
+    Flux<String> tokens = webClient.post()
         .uri(uri)
         .headers(httpHeaders -> {
           httpHeaders.addAll(headers);
@@ -132,32 +142,22 @@ public class OpenAIChatService {
             }
         )
         .bodyToFlux(String.class)
-        .mapNotNull(chunkJson -> {
-          if ("[DONE]".equals(chunkJson)) {
-            return null;
-          } else {
-            ObjectMapper mapper = new ObjectMapper();
-            try {
-              OpenAIChatStreamResponse openAIChatStreamResponse
-                  = mapper.readValue(chunkJson, OpenAIChatStreamResponse.class);
-
-              String content = openAIChatStreamResponse.choices().get(0).delta().content();
-
-              if (content == null) {
-                LOGGER.info("Content is null.");
-                return null;
-              }
-              if ("null".equals(content)) {
-                LOGGER.info("Content is 'null'.");
-                return null;
-              }
-
-              return ServerSentEvent.builder(openAIChatStreamResponse.choices().get(0)).build();
-            } catch (JsonProcessingException e) {
-              throw new RuntimeException(e);
+        .takeWhile(chunkJson -> !"[DONE]".equals(chunkJson))
+        .handle((chunkJson, sink) -> {
+          try {
+            String content = contentExtractor.extractContent(chunkJson);
+
+            if (content != null && !content.isEmpty() && !"null".equals(content)) {
+              sink.next(content);
             }
+          } catch (IOException e) {
+            sink.error(new OpenAIException("Unreadable chat stream chunk", e));
           }
-        })
+        });
+
+    return coalesce(tokens)
+        .map(content -> ServerSentEvent.builder(new StreamResponseChoice(0,
+            new OpenAIChatMessage(OpenAIChatMessage.Role.ASSISTANT, content), null)).build())
         .doOnError(throwable -> {
           if (throwable instanceof OpenAIException oe) {
             LOGGER.error("Error from OpenAI: {}", oe.getErrorDetail(), oe);
@@ -166,8 +166,44 @@ public class OpenAIChatService {
           }
         })
         .doOnComplete(() -> {
-          LOGGER.info("Stream completed.");
+          LOGGER.debug("Stream completed.");
         });
   }
 
+  /**
+   * Joins tokens into batches of at most {@code batchTokens}, held back for at most
+   * {@code batchDelay}. If enabled, a token that ends a sentence or line also ends its batch.
+   * <p>
+   * The buffers respect backpressure: a batch whose delay has passed while the subscriber has no
+   * outstanding demand, e.g. a slow SSE client, is held until the subscriber requests it.
+   */
+  Flux<String> coalesce(Flux<String> tokens) {
+    int batchTokens = streamProperties.batchTokens();
+    if (batchTokens <= 1) {
+      return tokens;
+    }
+
+    Flux<Flux<String>> windows = streamProperties.flushOnSentence()
+        ? tokens.windowUntil(OpenAIChatService::endsSentence)
+        : Flux.just(tokens);
+
+    return windows
+        .concatMap(window -> window.bufferTimeout(batchTokens, streamProperties.batchDelay(), true))
+        .map(batch -> String.join("", batch))
+        .filter(batch -> !batch.isEmpty());
+  }
+
+  static boolean endsSentence(String token) {
+    for (int i = token.length() - 1; i >= 0; i--) {
+      char c = token.charAt(i);
+      if (c == '\n') {
+        return true;
+      }
+      if (!Character.isWhitespace(c)) {
+        return c == '.' || c == '!' || c == '?';
+      }
+    }
+    return false;
+  }
+
 }
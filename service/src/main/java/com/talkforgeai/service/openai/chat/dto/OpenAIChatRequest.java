@@ -19,7 +19,8 @@ package com.talkforgeai.service.openai.chat.dto;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.talkforgeai.service.json.JsonCodec;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +28,8 @@ import java.util.Map;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class OpenAIChatRequest {
 
+  private static final ObjectWriter WRITER = JsonCodec.createObjectMapper().writer();
+
   String model;
   List<OpenAIChatMessage> messages;
 
@@ -177,7 +180,7 @@ public class OpenAIChatRequest {
 
   public String toJSON() {
     try {
-      return new ObjectMapper().writeValueAsString(this);
+      return WRITER.writeValueAsString(this);
     } catch (JsonProcessingException e) {
       throw new RuntimeException("Error while converting to JSON", e);
     }
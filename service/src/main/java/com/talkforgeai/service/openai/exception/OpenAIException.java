@@ -22,6 +22,7 @@ public class OpenAIException extends RuntimeException {
 
   private ApiErrorBody errorDetail;
   private String detail;
+  private int statusCode;
 
   @Deprecated
   public OpenAIException(String message, String detail) {
@@ -34,6 +35,12 @@ public class OpenAIException extends RuntimeException {
     this.errorDetail = errorDetail;
   }
 
+  public OpenAIException(String message, int statusCode, ApiErrorBody errorDetail) {
+    super(message);
+    this.statusCode = statusCode;
+    this.errorDetail = errorDetail;
+  }
+
   public OpenAIException(String message, Throwable cause) {
     super(message, cause);
   }
@@ -46,4 +53,11 @@ public class OpenAIException extends RuntimeException {
   public ApiErrorBody getErrorDetail() {
     return errorDetail;
   }
+
+  /**
+   * Returns the HTTP status OpenAI answered with, or 0 if no response was received.
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
 }
@@ -17,11 +17,17 @@
 package com.talkforgeai.service.openai.image;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talkforgeai.service.http.HttpClientProfile;
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.json.JsonCodec;
 import com.talkforgeai.service.openai.image.dto.OpenAIImageRequest;
 import com.talkforgeai.service.openai.image.dto.OpenAIImageResponse;
 import com.talkforgeai.service.properties.OpenAIProperties;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -38,21 +44,26 @@ public class OpenAIImageService {
 
   private final OkHttpClient client;
 
+  private final OkHttpClient downloadClient;
+
   private final OpenAIProperties openAIProperties;
 
+  private final JsonCodec jsonCodec;
+
   Logger logger = LoggerFactory.getLogger(OpenAIImageService.class);
 
-  public OpenAIImageService(OpenAIProperties openAIProperties, OkHttpClient client) {
+  public OpenAIImageService(OpenAIProperties openAIProperties,
+      UpstreamHttpClients httpClients, JsonCodec jsonCodec) {
     this.openAIProperties = openAIProperties;
-    this.client = client;
+    this.client = httpClients.get(HttpClientProfile.OPENAI_IMAGE);
+    this.downloadClient = httpClients.get(HttpClientProfile.DOWNLOAD);
+    this.jsonCodec = jsonCodec;
   }
 
   public OpenAIImageResponse submit(OpenAIImageRequest imageRequest) {
-    ObjectMapper objectMapper = new ObjectMapper();
-
     String message = null;
     try {
-      message = objectMapper.writeValueAsString(imageRequest);
+      message = jsonCodec.write(imageRequest);
 
       RequestBody body = RequestBody.create(message, JSON);
       Request request = new Request.Builder()
@@ -64,7 +75,7 @@ public class OpenAIImageService {
       logger.debug("Sending image request: {}", message);
 
       try (Response response = client.newCall(request).execute()) {
-        return objectMapper.readValue(response.body().string(), OpenAIImageResponse.class);
+        return jsonCodec.read(response.body().string(), OpenAIImageResponse.class);
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
@@ -74,4 +85,24 @@ public class OpenAIImageService {
     }
 
   }
+
+  /**
+   * Downloads a generated image from the image CDN to a local file.
+   */
+  public void download(String imageUrl, Path localFilePath) throws IOException {
+    Request request = new Request.Builder()
+        .url(imageUrl)
+        .get()
+        .build();
+
+    try (Response response = downloadClient.newCall(request).execute()) {
+      if (!response.isSuccessful()) {
+        throw new IOException("Unexpected code " + response);
+      }
+
+      try (InputStream in = response.body().byteStream()) {
+        Files.copy(in, localFilePath, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+  }
 }
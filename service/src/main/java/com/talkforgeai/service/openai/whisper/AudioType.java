@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.whisper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Audio containers accepted by the Whisper API, detected from the leading bytes of an upload.
+ */
+public enum AudioType {
+  WAV("audio/wav", ".wav"),
+  WEBM("audio/webm", ".webm"),
+  OGG("audio/ogg", ".ogg"),
+  FLAC("audio/flac", ".flac"),
+  MP3("audio/mpeg", ".mp3"),
+  MP4("audio/mp4", ".m4a");
+
+  /**
+   * Number of leading bytes needed by {@link #detect(byte[], int)}.
+   */
+  public static final int HEADER_LENGTH = 12;
+
+  private static final byte[] WEBM_SIGNATURE = {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3};
+
+  private final String mediaType;
+  private final String extension;
+
+  AudioType(String mediaType, String extension) {
+    this.mediaType = mediaType;
+    this.extension = extension;
+  }
+
+  public String getMediaType() {
+    return mediaType;
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+
+  public static Optional<AudioType> detect(byte[] header, int length) {
+    if (startsWith(header, length, 0, "RIFF") && startsWith(header, length, 8, "WAVE")) {
+      return Optional.of(WAV);
+    }
+    if (length >= WEBM_SIGNATURE.length
+        && Arrays.equals(header, 0, WEBM_SIGNATURE.length, WEBM_SIGNATURE, 0,
+        WEBM_SIGNATURE.length)) {
+      return Optional.of(WEBM);
+    }
+    if (startsWith(header, length, 0, "OggS")) {
+      return Optional.of(OGG);
+    }
+    if (startsWith(header, length, 0, "fLaC")) {
+      return Optional.of(FLAC);
+    }
+    if (startsWith(header, length, 0, "ID3")
+        || (length >= 2 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xE0) == 0xE0)) {
+      return Optional.of(MP3);
+    }
+    if (startsWith(header, length, 4, "ftyp")) {
+      return Optional.of(MP4);
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * Detects the type from the start of a stream supporting mark/reset and rewinds it afterwards,
+   * so the whole stream can still be consumed.
+   */
+  public static Optional<AudioType> detect(InputStream in) throws IOException {
+    in.mark(HEADER_LENGTH);
+    byte[] header = in.readNBytes(HEADER_LENGTH);
+    in.reset();
+    return detect(header, header.length);
+  }
+
+  private static boolean startsWith(byte[] header, int length, int offset, String signature) {
+    byte[] bytes = signature.getBytes(StandardCharsets.US_ASCII);
+    return length >= offset + bytes.length
+        && Arrays.equals(header, offset, offset + bytes.length, bytes, 0, bytes.length);
+  }
+}
@@ -16,11 +16,28 @@
 
 package com.talkforgeai.service.openai.whisper;
 
+import com.talkforgeai.service.http.HttpClientProfile;
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.whisper.dto.TranscriptionResponse;
 import com.talkforgeai.service.properties.OpenAIProperties;
+import com.talkforgeai.service.properties.WhisperProperties;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
@@ -30,8 +47,8 @@ import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
@@ -42,44 +59,105 @@ public class OpenAIWhisperService {
 
   private final OkHttpClient client;
 
-  public OpenAIWhisperService(OpenAIProperties openAIProperties, OkHttpClient client) {
+  private final JsonCodec jsonCodec;
+
+  private final WavChunker wavChunker;
+
+  private final ExecutorService executor;
+
+  public OpenAIWhisperService(OpenAIProperties openAIProperties,
+      UpstreamHttpClients httpClients, WhisperProperties whisperProperties,
+      JsonCodec jsonCodec) {
     this.openAIProperties = openAIProperties;
-    this.client = client;
+    this.client = httpClients.get(HttpClientProfile.WHISPER);
+    this.jsonCodec = jsonCodec;
+    this.wavChunker = new WavChunker(whisperProperties.maxChunkDuration(),
+        whisperProperties.silenceSearch());
+    this.executor = Executors.newFixedThreadPool(whisperProperties.parallelism(),
+        new CustomizableThreadFactory("Whisper-"));
   }
 
-  public ResponseEntity<String> convert(@RequestParam("file") MultipartFile file,
-      Path uploadDirectory) {
-    try {
-      try {
-        Files.createDirectories(uploadDirectory);
-        LOGGER.info("Upload directory created successfully");
-      } catch (IOException e) {
-        LOGGER.error("Failed to create directory: " + e.getMessage());
-      }
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
 
-      Path path = uploadDirectory.resolve("audio.wav");
+  /**
+   * Transcribes an uploaded recording. The upload is checked by its leading bytes, written once to
+   * a temporary file of its own and streamed from there into the multipart request.
+   */
+  public ResponseEntity<String> convert(MultipartFile file, Path uploadDirectory) {
+    Path path = null;
+
+    try (InputStream in = new BufferedInputStream(file.getInputStream())) {
+      Optional<AudioType> audioType = AudioType.detect(in);
+      if (audioType.isEmpty()) {
+        return ResponseEntity.badRequest().body("Unsupported audio format.");
+      }
 
-      LOGGER.info("Tansfering upload file to '{}'...", path);
-      file.transferTo(path);
+      Files.createDirectories(uploadDirectory);
+      path = Files.createTempFile(uploadDirectory, "audio-", audioType.get().getExtension());
 
-      // Send the file to the Whisper API
-      String text = callWhisperAPI(path.toFile());
+      LOGGER.info("Transferring upload file to '{}'...", path);
+      Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
 
-      // Return the result
-      return ResponseEntity.ok(text);
+      return ResponseEntity.ok(transcribe(path, audioType.get()));
     } catch (Exception e) {
       LOGGER.error("Error while calling whisper API", e);
       return ResponseEntity.status(500).body("Error converting voice to text: " + e.getMessage());
+    } finally {
+      deleteQuietly(path);
+    }
+  }
+
+  /**
+   * Transcribes a recording and returns the transcription as JSON, like the Whisper API does. Long
+   * WAV recordings are split into chunks which are transcribed in parallel and joined in order.
+   */
+  String transcribe(Path path, AudioType audioType) throws IOException {
+    List<Path> chunks = audioType == AudioType.WAV ? wavChunker.split(path) : List.of(path);
+
+    try {
+      if (chunks.size() == 1) {
+        return callWhisperAPI(path.toFile(), audioType);
+      }
+
+      LOGGER.info("Transcribing {} in {} chunks.", path, chunks.size());
+      List<CompletableFuture<String>> transcriptions = chunks.stream()
+          .map(chunk -> CompletableFuture.supplyAsync(() -> transcribeChunk(chunk), executor))
+          .toList();
+
+      StringJoiner text = new StringJoiner(" ");
+      for (CompletableFuture<String> transcription : transcriptions) {
+        text.add(transcription.join().strip());
+      }
+      return jsonCodec.write(new TranscriptionResponse(text.toString()));
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+        throw uncheckedIOException.getCause();
+      }
+      throw e;
+    } finally {
+      chunks.stream().filter(chunk -> !chunk.equals(path)).forEach(this::deleteQuietly);
+    }
+  }
+
+  private String transcribeChunk(Path chunk) {
+    try {
+      String response = callWhisperAPI(chunk.toFile(), AudioType.WAV);
+      return jsonCodec.read(response, TranscriptionResponse.class).text();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 
-  private String callWhisperAPI(File file) {
-    final String uri = "https://api.openai.com/v1/audio/transcriptions";
+  private String callWhisperAPI(File file, AudioType audioType) throws IOException {
+    final String uri = openAIProperties.apiUrl() + "/audio/transcriptions";
 
     RequestBody requestBody = new MultipartBody.Builder()
         .setType(MultipartBody.FORM)
-        .addFormDataPart("file", "audio.wav",
-            RequestBody.create(file, MediaType.parse("audio/wav")))
+        .addFormDataPart("file", "audio" + audioType.getExtension(),
+            RequestBody.create(file, MediaType.parse(audioType.getMediaType())))
         .addFormDataPart("model", "whisper-1")
         .build();
 
@@ -97,10 +175,18 @@ public class OpenAIWhisperService {
       String responseText = response.body().string();
       LOGGER.info("Extracted audio text: {}", responseText);
       return responseText;
-    } catch (IOException e) {
-      LOGGER.error("Error while calling whisper API", e);
+    }
+  }
+
+  private void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
     }
 
-    return null;
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      LOGGER.warn("Could not delete upload file '{}'.", path, e);
+    }
   }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.whisper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioFormat.Encoding;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Splits PCM WAV recordings into chunks of a maximum length.
+ * <p>
+ * Each boundary is put at the quietest 20ms window shortly before the maximum length, so words are
+ * rarely cut in half. The recording is read twice, once to measure the loudness and once to write
+ * the chunks, and never held in memory as a whole.
+ */
+class WavChunker {
+
+  private static final double WINDOW_SECONDS = 0.02;
+
+  private final Duration maxChunkDuration;
+  private final Duration silenceSearch;
+
+  WavChunker(Duration maxChunkDuration, Duration silenceSearch) {
+    this.maxChunkDuration = maxChunkDuration;
+    this.silenceSearch = silenceSearch;
+  }
+
+  /**
+   * Returns the chunk files in order, or just the recording itself if it is short enough or not
+   * 8/16 bit PCM. Chunk files are created next to the recording and must be deleted by the caller.
+   */
+  List<Path> split(Path wav) throws IOException {
+    AudioFormat format;
+    long totalFrames;
+    long[] boundaries;
+
+    try (AudioInputStream in = AudioSystem.getAudioInputStream(wav.toFile())) {
+      format = in.getFormat();
+      totalFrames = in.getFrameLength();
+      long maxFrames = (long) (format.getFrameRate() * maxChunkDuration.toMillis() / 1000);
+
+      if (!isSupported(format) || totalFrames == AudioSystem.NOT_SPECIFIED
+          || totalFrames <= maxFrames) {
+        return List.of(wav);
+      }
+
+      int windowFrames = Math.max(1, (int) (format.getFrameRate() * WINDOW_SECONDS));
+      long searchFrames = (long) (format.getFrameRate() * silenceSearch.toMillis() / 1000);
+      boundaries = boundaries(loudness(in, format, windowFrames), windowFrames, maxFrames,
+          searchFrames);
+    } catch (UnsupportedAudioFileException e) {
+      return List.of(wav);
+    }
+
+    List<Path> chunks = new ArrayList<>();
+    try (AudioInputStream in = AudioSystem.getAudioInputStream(wav.toFile())) {
+      InputStream source = new FilterInputStream(in) {
+        @Override
+        public void close() {
+          // the chunks share the stream, it is closed once all of them are written
+        }
+      };
+
+      long start = 0;
+      for (int i = 0; i <= boundaries.length; i++) {
+        long end = i < boundaries.length ? boundaries[i] : totalFrames;
+        Path chunk = Files.createTempFile(wav.getParent(), "audio-chunk-", ".wav");
+        chunks.add(chunk);
+
+        AudioSystem.write(new AudioInputStream(source, format, end - start),
+            AudioFileFormat.Type.WAVE, chunk.toFile());
+        start = end;
+      }
+    } catch (UnsupportedAudioFileException | IOException e) {
+      for (Path chunk : chunks) {
+        Files.deleteIfExists(chunk);
+      }
+      throw e instanceof IOException ioException ? ioException
+          : new IOException("Could not split " + wav, e);
+    }
+
+    return chunks;
+  }
+
+  /**
+   * Chooses the chunk boundaries as frame positions, given the mean amplitude per window.
+   */
+  static long[] boundaries(double[] loudness, int windowFrames, long maxFrames,
+      long searchFrames) {
+    int maxWindows = (int) Math.max(1, maxFrames / windowFrames);
+    int searchWindows = (int) Math.max(1, Math.min(maxWindows, searchFrames / windowFrames));
+
+    List<Long> boundaries = new ArrayList<>();
+    int start = 0;
+    while (loudness.length - start > maxWindows) {
+      int limit = start + maxWindows;
+      int best = limit;
+      for (int window = limit - 1; window >= limit - searchWindows && window > start; window--) {
+        if (loudness[window] < loudness[best]) {
+          best = window;
+        }
+      }
+      boundaries.add((long) best * windowFrames);
+      start = best;
+    }
+
+    return boundaries.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private static boolean isSupported(AudioFormat format) {
+    return (format.getEncoding().equals(Encoding.PCM_SIGNED)
+        || format.getEncoding().equals(Encoding.PCM_UNSIGNED))
+        && (format.getSampleSizeInBits() == 8 || format.getSampleSizeInBits() == 16);
+  }
+
+  private static double[] loudness(AudioInputStream in, AudioFormat format, int windowFrames)
+      throws IOException {
+    int frameSize = format.getFrameSize();
+    int sampleBytes = format.getSampleSizeInBits() / 8;
+    boolean unsigned = format.getEncoding().equals(Encoding.PCM_UNSIGNED);
+    byte[] window = new byte[windowFrames * frameSize];
+
+    List<Double> result = new ArrayList<>();
+    int read;
+    while ((read = in.readNBytes(window, 0, window.length)) > 0) {
+      long sum = 0;
+      int samples = read / sampleBytes;
+      for (int i = 0; i < samples; i++) {
+        int offset = i * sampleBytes;
+        int sample;
+        if (sampleBytes == 1) {
+          sample = unsigned ? (window[offset] & 0xFF) - 128 : window[offset];
+        } else if (format.isBigEndian()) {
+          sample = (short) ((window[offset] << 8) | (window[offset + 1] & 0xFF));
+        } else {
+          sample = (short) ((window[offset + 1] << 8) | (window[offset] & 0xFF));
+        }
+        sum += Math.abs(sample);
+      }
+      result.add(samples > 0 ? (double) sum / samples : 0);
+    }
+
+    return result.stream().mapToDouble(Double::doubleValue).toArray();
+  }
+}
@@ -16,34 +16,212 @@
 
 package com.talkforgeai.service.plantuml;
 
+import com.talkforgeai.service.properties.PlantUMLProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.sourceforge.plantuml.FileFormat;
 import net.sourceforge.plantuml.FileFormatOption;
 import net.sourceforge.plantuml.SourceStringReader;
 import net.sourceforge.plantuml.core.DiagramDescription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+/**
+ * Renders PlantUML diagrams on a dedicated, bounded pool.
+ * <p>
+ * Callers block until their diagram is rendered, but never longer than the configured timeout.
+ * When all render threads are busy and the queue is full, requests are rejected right away instead
+ * of piling up behind a pathological diagram.
+ * <p>
+ * A timed out render is cancelled, but PlantUML's layout is CPU-bound and does not check for
+ * interruption, so the render usually keeps its thread until it finishes on its own. The
+ * {@code plantuml.render.abandoned} gauge counts these renders; while it equals the number of
+ * threads, every further diagram waits in the queue or is rejected.
+ */
 @Service
 public class PlantUMLService {
 
   public static final Logger LOGGER = LoggerFactory.getLogger(PlantUMLService.class);
 
+  /**
+   * Scale of raster output. Vector formats are rendered unscaled.
+   */
+  public static final double SCALE = 2.0;
+
+  private final ThreadPoolExecutor executor;
+  private final Duration renderTimeout;
+  private final Renderer renderer;
+  private final Timer renderTimer;
+  private final Counter rejectedCounter;
+  private final Counter timeoutCounter;
+  private final AtomicInteger abandonedRenders = new AtomicInteger();
+
+  @Autowired
+  public PlantUMLService(PlantUMLProperties properties, MeterRegistry meterRegistry) {
+    this(properties, meterRegistry, PlantUMLService::render);
+  }
+
+  PlantUMLService(PlantUMLProperties properties, MeterRegistry meterRegistry, Renderer renderer) {
+    this.renderer = renderer;
+    int threads = properties.effectiveThreads();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(properties.queueCapacity()),
+        new CustomizableThreadFactory("PlantUML-"),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.renderTimeout = properties.renderTimeout();
+
+    Gauge.builder("plantuml.queue.size", executor, e -> e.getQueue().size())
+        .description("Diagrams waiting for a render thread")
+        .register(meterRegistry);
+    Gauge.builder("plantuml.render.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(meterRegistry);
+    this.renderTimer = Timer.builder("plantuml.render")
+        .description("Time spent rendering a diagram, excluding queueing")
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder("plantuml.render.rejected").register(meterRegistry);
+    this.timeoutCounter = Counter.builder("plantuml.render.timeouts").register(meterRegistry);
+    Gauge.builder("plantuml.render.abandoned", abandonedRenders, AtomicInteger::get)
+        .description("Timed out renders that still occupy a render thread")
+        .register(meterRegistry);
+
+    LOGGER.info("PlantUML rendering with {} threads, queue capacity {}, timeout {}.", threads,
+        properties.queueCapacity(), renderTimeout);
+  }
+
   public DiagramDescription generateUmlDiagram(String source, String fileName) {
+    return generateUmlDiagram(source, fileName, FileFormat.PNG);
+  }
+
+  public DiagramDescription generateUmlDiagram(String source, String fileName,
+      FileFormat format) {
+    RenderTask task = new RenderTask(source, fileName, format);
+    Future<DiagramDescription> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      rejectedCounter.increment();
+      throw new PlantUMLException("Too many PlantUML diagrams are being rendered.", e);
+    }
+
+    try {
+      return future.get(renderTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      task.abandon();
+      timeoutCounter.increment();
+      throw new PlantUMLException("Rendering PlantUML diagram timed out after " + renderTimeout
+          + ".", e);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new PlantUMLException("Interrupted while rendering PlantUML diagram.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof PlantUMLException cause) {
+        throw cause;
+      }
+      throw new PlantUMLException("Error generating PlantUML diagram.", e.getCause());
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static DiagramDescription render(String source, String fileName, FileFormat format) {
     SourceStringReader reader = new SourceStringReader(source);
-    try (OutputStream png = new FileOutputStream(fileName)) {
+    try (OutputStream out = new FileOutputStream(fileName)) {
 
-      FileFormatOption option = new FileFormatOption(FileFormat.PNG).withScale(2.0);
+      FileFormatOption option = format == FileFormat.PNG
+          ? new FileFormatOption(format).withScale(SCALE)
+          : new FileFormatOption(format);
 
-      // Write the first image to "png"
-      DiagramDescription diagramDescription = reader.outputImage(png, option);
+      // Write the first image to "out"
+      DiagramDescription diagramDescription = reader.outputImage(out, option);
       LOGGER.info("Generated UML diagram: {}", diagramDescription);
       return diagramDescription;
     } catch (IOException e) {
       throw new PlantUMLException("Error generating PlantUML diagram.", e);
     }
   }
+
+  @FunctionalInterface
+  interface Renderer {
+
+    DiagramDescription render(String source, String fileName, FileFormat format);
+  }
+
+  /**
+   * Renders one diagram and keeps track of whether its caller gave up on it while it was running.
+   */
+  private class RenderTask implements Callable<DiagramDescription> {
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int ABANDONED = 2;
+    private static final int DONE = 3;
+
+    private final String source;
+    private final String fileName;
+    private final FileFormat format;
+    private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+    RenderTask(String source, String fileName, FileFormat format) {
+      this.source = source;
+      this.fileName = fileName;
+      this.format = format;
+    }
+
+    @Override
+    public DiagramDescription call() throws Exception {
+      if (!state.compareAndSet(QUEUED, RUNNING)) {
+        return null;
+      }
+
+      long start = System.nanoTime();
+      try {
+        return renderTimer.recordCallable(() -> renderer.render(source, fileName, format));
+      } finally {
+        if (state.getAndSet(DONE) == ABANDONED) {
+          abandonedRenders.decrementAndGet();
+          LOGGER.warn("Abandoned PlantUML render of {} finished after {} ms.", fileName,
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+      }
+    }
+
+    /**
+     * Called once the caller stopped waiting. Counts the render as abandoned if it is still
+     * running; a queued render will not start anymore.
+     */
+    void abandon() {
+      if (state.compareAndSet(QUEUED, DONE)) {
+        return;
+      }
+      // Count first, so the gauge never drops below zero if the render finishes right now.
+      abandonedRenders.incrementAndGet();
+      if (!state.compareAndSet(RUNNING, ABANDONED)) {
+        abandonedRenders.decrementAndGet();
+      }
+    }
+  }
 }
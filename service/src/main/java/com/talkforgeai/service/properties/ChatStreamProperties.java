@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.properties;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Coalescing of streamed chat completion tokens into fewer server-sent events. A batch is sent as
+ * soon as one of the limits is reached.
+ *
+ * @param batchTokens     maximum number of tokens per event, {@code 1} sends every token on its
+ *                        own
+ * @param batchDelay      maximum time a token is held back
+ * @param flushOnSentence whether a token that ends a sentence or line closes the batch
+ */
+@ConfigurationProperties(prefix = "talkforgeai.chat.stream")
+public record ChatStreamProperties(@DefaultValue("8") int batchTokens,
+                                   @DefaultValue("50ms") Duration batchDelay,
+                                   @DefaultValue("true") boolean flushOnSentence) {
+
+}
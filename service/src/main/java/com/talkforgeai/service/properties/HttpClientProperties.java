@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.properties;
+
+import com.talkforgeai.service.http.HttpClientProfile;
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "talkforgeai.http")
+public record HttpClientProperties(Map<HttpClientProfile, Client> clients) {
+
+  public HttpClientProperties {
+    clients = clients != null ? clients : Map.of();
+  }
+
+  public Client client(HttpClientProfile profile) {
+    return clients.getOrDefault(profile, Client.DEFAULT);
+  }
+
+  /**
+   * Settings of a single upstream client.
+   * <p>
+   * The dispatcher limits ({@code maxRequests}, {@code maxRequestsPerHost}) only apply to
+   * asynchronous calls; blocking calls are bounded by the connection pool and the timeouts.
+   */
+  public record Client(@DefaultValue("10s") Duration connectTimeout,
+                       @DefaultValue("5m") Duration readTimeout,
+                       @DefaultValue("5m") Duration writeTimeout,
+                       @DefaultValue("5m") Duration callTimeout,
+                       @DefaultValue("5") int maxIdleConnections,
+                       @DefaultValue("5m") Duration keepAlive,
+                       @DefaultValue("64") int maxRequests,
+                       @DefaultValue("5") int maxRequestsPerHost,
+                       @DefaultValue("true") boolean http2) {
+
+    public static final Client DEFAULT = new Client(Duration.ofSeconds(10), Duration.ofMinutes(5),
+        Duration.ofMinutes(5), Duration.ofMinutes(5), 5, Duration.ofMinutes(5), 64, 5, true);
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.properties;
+
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Logging of upstream HTTP traffic.
+ *
+ * @param mode             what to log, see {@link Mode}
+ * @param sampleRate       share of calls (0..1) whose bodies are logged in
+ *                         {@link Mode#SAMPLED_BODY} mode
+ * @param maxBodyBytes     bodies larger than this are truncated (responses) or omitted (requests)
+ * @param bodyContentTypes media types whose bodies may be logged, e.g. {@code application/json} or
+ *                         {@code text/*}; everything else (audio, images, multipart) is never
+ *                         buffered
+ */
+@ConfigurationProperties(prefix = "talkforgeai.http.logging")
+public record HttpLoggingProperties(@DefaultValue("HEADERS") Mode mode,
+                                    @DefaultValue("0.1") double sampleRate,
+                                    @DefaultValue("4096") long maxBodyBytes,
+                                    @DefaultValue({"application/json", "text/plain"})
+                                    List<String> bodyContentTypes) {
+
+  public enum Mode {
+    NONE,
+    HEADERS,
+    SAMPLED_BODY,
+    BODY
+  }
+}
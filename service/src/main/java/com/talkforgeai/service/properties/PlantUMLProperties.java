@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.properties;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Limits for PlantUML rendering.
+ *
+ * @param threads       number of render threads, {@code 0} uses the number of available cores
+ * @param queueCapacity diagrams waiting for a render thread; further requests are rejected
+ * @param renderTimeout maximum time to wait for a single diagram before it is cancelled; the
+ *                      render itself may keep running, see {@code PlantUMLService}
+ */
+@ConfigurationProperties(prefix = "talkforgeai.plantuml")
+public record PlantUMLProperties(@DefaultValue("0") int threads,
+                                 @DefaultValue("16") int queueCapacity,
+                                 @DefaultValue("20s") Duration renderTimeout) {
+
+  public int effectiveThreads() {
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+}
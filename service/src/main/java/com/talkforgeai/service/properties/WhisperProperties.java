@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.properties;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Splitting of long recordings for Whisper transcription.
+ *
+ * @param maxChunkDuration maximum length of a chunk sent to the transcription API
+ * @param silenceSearch    time before the maximum length in which the quietest point is chosen as
+ *                         the chunk boundary
+ * @param parallelism      number of chunks transcribed at the same time, across all requests
+ */
+@ConfigurationProperties(prefix = "talkforgeai.whisper")
+public record WhisperProperties(@DefaultValue("60s") Duration maxChunkDuration,
+                                @DefaultValue("10s") Duration silenceSearch,
+                                @DefaultValue("4") int parallelism) {
+
+}
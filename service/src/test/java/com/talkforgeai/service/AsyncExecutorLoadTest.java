@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.apache.coyote.AbstractProtocol;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatVirtualThreadsWebServerFactoryCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Compares how many blocking upstream calls the async executors and Tomcat handle at the same time
+ * with platform and with virtual threads. Each task blocks like an upstream call of 100ms.
+ */
+class AsyncExecutorLoadTest {
+
+  private static final int CONCURRENT_CALLS = 40;
+  private static final Duration CALL_DURATION = Duration.ofMillis(100);
+  private static final int TOMCAT_MAX_THREADS = 10;
+
+  @Test
+  void sseExecutorHandlesAllCallsAtOnceWithVirtualThreads() throws InterruptedException {
+    Duration platform = run(new SpringAsyncConfiguration(false).getAsyncExecutor());
+    Duration virtual = run(new SpringAsyncConfiguration(true).getAsyncExecutor());
+
+    // Two platform threads work through the calls in 20 rounds.
+    assertTrue(platform.compareTo(CALL_DURATION.multipliedBy(CONCURRENT_CALLS / 2)) >= 0,
+        () -> "platform threads took " + platform.toMillis() + " ms");
+    assertTrue(virtual.compareTo(CALL_DURATION.multipliedBy(5)) < 0,
+        () -> "virtual threads took " + virtual.toMillis() + " ms");
+  }
+
+  @Test
+  void mvcExecutorHandlesAllCallsAtOnceWithVirtualThreads() throws InterruptedException {
+    Duration platform = run(new WebMVCAsyncConfig(false).taskExecutor());
+    Duration virtual = run(new WebMVCAsyncConfig(true).taskExecutor());
+
+    // The pool only grows beyond its five core threads once the queue is full.
+    assertTrue(platform.compareTo(CALL_DURATION.multipliedBy(CONCURRENT_CALLS / 5)) >= 0,
+        () -> "platform threads took " + platform.toMillis() + " ms");
+    assertTrue(virtual.compareTo(CALL_DURATION.multipliedBy(5)) < 0,
+        () -> "virtual threads took " + virtual.toMillis() + " ms");
+  }
+
+  @Test
+  void tomcatHandlesAllRequestsAtOnceWithVirtualThreads() throws Exception {
+    Duration platform = serve(false);
+    Duration virtual = serve(true);
+
+    // The request threads work through the requests in rounds.
+    assertTrue(platform.compareTo(
+            CALL_DURATION.multipliedBy(CONCURRENT_CALLS / TOMCAT_MAX_THREADS)) >= 0,
+        () -> "platform threads took " + platform.toMillis() + " ms");
+    assertTrue(virtual.compareTo(CALL_DURATION.multipliedBy(5)) < 0,
+        () -> "virtual threads took " + virtual.toMillis() + " ms");
+  }
+
+  /**
+   * Starts Tomcat with a servlet that blocks like an upstream call and sends it concurrent
+   * requests. The thread pool is kept small, so its limit shows without hundreds of requests.
+   */
+  private static Duration serve(boolean virtualThreads) throws Exception {
+    TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+    factory.addConnectorCustomizers(connector -> {
+      if (connector.getProtocolHandler() instanceof AbstractProtocol<?> protocol) {
+        protocol.setMaxThreads(TOMCAT_MAX_THREADS);
+      }
+    });
+    if (virtualThreads) {
+      // Applied by Spring Boot if spring.threads.virtual.enabled is true.
+      new TomcatVirtualThreadsWebServerFactoryCustomizer().customize(factory);
+    }
+
+    WebServer server = factory.getWebServer(context -> context
+        .addServlet("upstream", new HttpServlet() {
+          @Override
+          protected void doGet(HttpServletRequest request, HttpServletResponse response)
+              throws IOException {
+            try {
+              Thread.sleep(CALL_DURATION.toMillis());
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+          }
+        })
+        .addMapping("/"));
+    server.start();
+
+    try {
+      HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+      HttpRequest request = HttpRequest.newBuilder(
+          URI.create("http://localhost:" + server.getPort() + "/")).build();
+      // Warm up, so startup costs don't count against the measurement.
+      client.send(request, HttpResponse.BodyHandlers.discarding());
+
+      long start = System.nanoTime();
+      List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_CALLS; i++) {
+        responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+      }
+      for (CompletableFuture<HttpResponse<Void>> response : responses) {
+        assertEquals(HttpServletResponse.SC_NO_CONTENT,
+            response.get(30, TimeUnit.SECONDS).statusCode());
+      }
+      return Duration.ofNanos(System.nanoTime() - start);
+    } finally {
+      server.stop();
+    }
+  }
+
+  private static Duration run(Executor executor) throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(CONCURRENT_CALLS);
+    long start = System.nanoTime();
+
+    for (int i = 0; i < CONCURRENT_CALLS; i++) {
+      executor.execute(() -> {
+        try {
+          Thread.sleep(CALL_DURATION.toMillis());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          done.countDown();
+        }
+      });
+    }
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    Duration duration = Duration.ofNanos(System.nanoTime() - start);
+
+    if (executor instanceof ThreadPoolTaskExecutor pool) {
+      pool.shutdown();
+    }
+    return duration;
+  }
+}
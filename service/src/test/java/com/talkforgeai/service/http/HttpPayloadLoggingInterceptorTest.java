@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.http;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.talkforgeai.service.properties.HttpLoggingProperties;
+import com.talkforgeai.service.properties.HttpLoggingProperties.Mode;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs requests through the interceptor against a local stub server and checks what ends up in
+ * the log.
+ */
+class HttpPayloadLoggingInterceptorTest {
+
+  private static final MediaType JSON = MediaType.get("application/json");
+  private static final int MAX_BODY_BYTES = 16;
+  private static final String LONG_JSON = "{\"text\":\"" + "a".repeat(100) + "\"}";
+  private static final byte[] AUDIO = new byte[64 * 1024];
+
+  static {
+    Arrays.fill(AUDIO, (byte) 0x55);
+  }
+
+  private final Logger logger = (Logger) LoggerFactory.getLogger(
+      HttpPayloadLoggingInterceptor.class);
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+  private HttpServer server;
+  private String baseUrl;
+
+  @BeforeEach
+  void before() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/json", exchange -> respond(exchange, "application/json",
+        LONG_JSON.getBytes(StandardCharsets.UTF_8)));
+    server.createContext("/audio", exchange -> respond(exchange, "audio/mpeg", AUDIO));
+    server.start();
+    baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+    logger.setLevel(Level.INFO);
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  @AfterEach
+  void after() {
+    logger.detachAppender(appender);
+    server.stop(0);
+  }
+
+  @Test
+  void credentialsAndCookiesAreRedacted() throws IOException {
+    Request request = new Request.Builder().url(baseUrl + "/json")
+        .header("Authorization", "Bearer sk-secret")
+        .header("xi-api-key", "xi-secret")
+        .header("x-api-key", "x-secret")
+        .header("Cookie", "session=cookie-secret")
+        .build();
+
+    call(Mode.HEADERS, request);
+
+    String log = log();
+    for (String secret : List.of("sk-secret", "xi-secret", "x-secret", "cookie-secret",
+        "set-cookie-secret")) {
+      assertFalse(log.contains(secret), secret + " must not be logged");
+    }
+    assertEquals(5, log.split("<redacted>", -1).length - 1);
+  }
+
+  @Test
+  void oneShotMultipartAndOversizeRequestBodiesAreOmitted() throws IOException {
+    RequestBody oneShot = new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return JSON;
+      }
+
+      @Override
+      public void writeTo(@NotNull BufferedSink sink) throws IOException {
+        sink.writeUtf8("{}");
+      }
+
+      @Override
+      public boolean isOneShot() {
+        return true;
+      }
+    };
+    RequestBody multipart = new MultipartBody.Builder().setType(MultipartBody.FORM)
+        .addFormDataPart("file", "audio.mp3",
+            RequestBody.create(AUDIO, MediaType.get("audio/mpeg")))
+        .build();
+    RequestBody oversize = RequestBody.create(LONG_JSON, JSON);
+
+    for (RequestBody body : List.of(oneShot, multipart, oversize)) {
+      call(Mode.BODY, new Request.Builder().url(baseUrl + "/json").post(body).build());
+    }
+
+    List<String> requestBodies = messages().stream()
+        .filter(message -> message.startsWith("--> body"))
+        .toList();
+    assertEquals(3, requestBodies.size());
+    assertTrue(requestBodies.stream().allMatch(message -> message.startsWith("--> body omitted")),
+        () -> String.join("\n", requestBodies));
+  }
+
+  @Test
+  void smallJsonRequestBodyIsLogged() throws IOException {
+    call(Mode.BODY, new Request.Builder().url(baseUrl + "/json")
+        .post(RequestBody.create("{\"a\":1}", JSON)).build());
+
+    assertTrue(messages().contains("--> body: {\"a\":1}"), this::log);
+  }
+
+  @Test
+  void audioResponseIsNotPeekedAndStaysReadable() throws IOException {
+    byte[] audio = call(Mode.BODY, new Request.Builder().url(baseUrl + "/audio").build());
+
+    assertArrayEquals(AUDIO, audio);
+    assertTrue(messages().stream()
+        .anyMatch(message -> message.startsWith("<-- body omitted (audio/mpeg")), this::log);
+    assertFalse(log().contains("UUUU"), "audio bytes must not be logged");
+  }
+
+  @Test
+  void jsonResponseIsTruncatedAtMaxBodyBytes() throws IOException {
+    byte[] json = call(Mode.BODY, new Request.Builder().url(baseUrl + "/json").build());
+
+    assertEquals(LONG_JSON, new String(json, StandardCharsets.UTF_8));
+    assertTrue(messages().contains("<-- body (possibly truncated): "
+        + LONG_JSON.substring(0, MAX_BODY_BYTES)), this::log);
+  }
+
+  @Test
+  void noneLogsNothing() throws IOException {
+    call(Mode.NONE, new Request.Builder().url(baseUrl + "/json")
+        .header("Authorization", "Bearer sk-secret")
+        .post(RequestBody.create("{}", JSON)).build());
+
+    assertTrue(appender.list.isEmpty(), this::log);
+  }
+
+  private byte[] call(Mode mode, Request request) throws IOException {
+    HttpLoggingProperties properties = new HttpLoggingProperties(mode, 0, MAX_BODY_BYTES,
+        List.of("application/json", "text/plain"));
+    OkHttpClient client = new OkHttpClient.Builder()
+        .addInterceptor(new HttpPayloadLoggingInterceptor(properties))
+        .build();
+
+    try (Response response = client.newCall(request).execute()) {
+      return response.body().bytes();
+    }
+  }
+
+  private List<String> messages() {
+    return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+  }
+
+  private String log() {
+    return String.join("\n", messages());
+  }
+
+  private static void respond(HttpExchange exchange, String contentType, byte[] body)
+      throws IOException {
+    exchange.getRequestBody().readAllBytes();
+    exchange.getResponseHeaders().add("Content-Type", contentType);
+    exchange.getResponseHeaders().add("Set-Cookie", "__cf_bm=set-cookie-secret");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.talkforgeai.service.properties.HttpClientProperties;
+import com.talkforgeai.service.properties.HttpClientProperties.Client;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.Test;
+
+class UpstreamHttpClientsTest {
+
+  private final Interceptor baseInterceptor = chain -> chain.proceed(chain.request());
+  private final OkHttpClient baseClient = new OkHttpClient.Builder()
+      .addInterceptor(baseInterceptor)
+      .build();
+
+  @Test
+  void eachProfileGetsItsOwnSettings() {
+    UpstreamHttpClients clients = new UpstreamHttpClients(baseClient, properties());
+
+    for (HttpClientProfile profile : HttpClientProfile.values()) {
+      OkHttpClient client = clients.get(profile);
+      int i = profile.ordinal();
+
+      assertEquals(Duration.ofSeconds(1 + i).toMillis(), client.connectTimeoutMillis(),
+          profile.name());
+      assertEquals(Duration.ofSeconds(10 + i).toMillis(), client.readTimeoutMillis(),
+          profile.name());
+      assertEquals(Duration.ofSeconds(20 + i).toMillis(), client.callTimeoutMillis(),
+          profile.name());
+      assertEquals(http2(profile) ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+          : List.of(Protocol.HTTP_1_1), client.protocols(), profile.name());
+      assertEquals(30 + i, client.dispatcher().getMaxRequests(), profile.name());
+    }
+  }
+
+  @Test
+  void profilesShareExecutorAndInterceptorsButNotConnectionPools() {
+    UpstreamHttpClients clients = new UpstreamHttpClients(baseClient, properties());
+
+    Set<ConnectionPool> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+    pools.add(baseClient.connectionPool());
+    for (HttpClientProfile profile : HttpClientProfile.values()) {
+      OkHttpClient client = clients.get(profile);
+
+      assertSame(baseClient.dispatcher().executorService(),
+          client.dispatcher().executorService(), profile.name());
+      assertNotSame(baseClient.dispatcher(), client.dispatcher(), profile.name());
+      assertSame(baseInterceptor, client.interceptors().get(0), profile.name());
+      pools.add(client.connectionPool());
+    }
+
+    assertEquals(HttpClientProfile.values().length + 1, pools.size());
+  }
+
+  @Test
+  void metersAreRegisteredPerProfile() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    new UpstreamHttpClients(baseClient, properties()).bindTo(registry);
+
+    for (HttpClientProfile profile : HttpClientProfile.values()) {
+      String name = profile.name().toLowerCase(Locale.ROOT);
+      for (String state : List.of("total", "idle")) {
+        assertNotNull(registry.find("okhttp.pool.connections")
+            .tags("client", name, "state", state).gauge(), name + " pool " + state);
+      }
+      for (String state : List.of("running", "queued")) {
+        assertNotNull(registry.find("okhttp.dispatcher.calls")
+            .tags("client", name, "state", state).gauge(), name + " dispatcher " + state);
+      }
+      assertEquals(0, registry.get("okhttp.calls.active").tag("client", name).gauge().value());
+    }
+
+    int profiles = HttpClientProfile.values().length;
+    assertEquals(2 * profiles, registry.find("okhttp.pool.connections").gauges().size());
+    assertEquals(2 * profiles, registry.find("okhttp.dispatcher.calls").gauges().size());
+    assertEquals(profiles, registry.find("okhttp.calls.active").gauges().size());
+  }
+
+  /**
+   * Settings that differ for every profile, so a profile picking up another one's would show.
+   */
+  private static HttpClientProperties properties() {
+    Map<HttpClientProfile, Client> settings = new EnumMap<>(HttpClientProfile.class);
+    for (HttpClientProfile profile : HttpClientProfile.values()) {
+      int i = profile.ordinal();
+      settings.put(profile, new Client(Duration.ofSeconds(1 + i), Duration.ofSeconds(10 + i),
+          Duration.ofSeconds(10 + i), Duration.ofSeconds(20 + i), 2, Duration.ofMinutes(1), 30 + i,
+          5, http2(profile)));
+    }
+    return new HttpClientProperties(settings);
+  }
+
+  private static boolean http2(HttpClientProfile profile) {
+    return profile.ordinal() % 2 == 0;
+  }
+}
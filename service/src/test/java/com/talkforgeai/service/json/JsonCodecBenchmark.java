@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.json;
+
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of binding one recorded chat stream chunk, with a mapper created per chunk as the clients
+ * did before {@link JsonCodec} and with the shared codec. The {@code gc} profiler, which
+ * {@link #main} enables, reports the allocations per chunk.
+ * <p>
+ * Not run by the test suite; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+
+  private String chunk;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(JsonCodecBenchmark.class.getSimpleName())
+        .addProfiler("gc")
+        .build())
+        .run();
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    try (InputStream in = getClass().getResourceAsStream("/openai/chat-stream.txt")) {
+      String[] events = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n\n");
+      // A chunk from the middle of the stream, carrying one token of content.
+      chunk = events[events.length / 2].substring("data: ".length());
+    }
+  }
+
+  @Benchmark
+  public OpenAIChatStreamResponse mapperPerChunk() throws IOException {
+    return JsonCodec.createObjectMapper().readValue(chunk, OpenAIChatStreamResponse.class);
+  }
+
+  @Benchmark
+  public OpenAIChatStreamResponse sharedCodec() throws IOException {
+    return jsonCodec.read(chunk, OpenAIChatStreamResponse.class);
+  }
+}
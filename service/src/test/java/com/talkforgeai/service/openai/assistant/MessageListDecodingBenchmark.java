@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.assistant;
+
+import com.sun.net.httpserver.HttpServer;
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.assistant.dto.ListRequest;
+import com.talkforgeai.service.openai.assistant.dto.MessageList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of listing the messages of a thread with 1k and 10k messages from a local stub of the
+ * Assistants API. Compares decoding straight from the response stream, as
+ * {@link OpenAIAssistantService} does, with reading the body into a String first. Run with
+ * {@code -prof gc} to see the allocations per call.
+ * <p>
+ * Not run by the test suite; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageListDecodingBenchmark {
+
+  @Param({"1000", "10000"})
+  int messageCount;
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+  private final OkHttpClient client = new OkHttpClient();
+
+  private HttpServer server;
+  private OpenAIAssistantService assistantService;
+  private Request request;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(MessageListDecodingBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    byte[] body = OpenAIAssistantServiceTest.messageList(messageCount)
+        .getBytes(StandardCharsets.UTF_8);
+
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/v1/threads/thread_1/messages", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+
+    String apiUrl = "http://localhost:" + server.getAddress().getPort() + "/v1";
+    assistantService = OpenAIAssistantServiceTest.assistantService(apiUrl);
+    request = new Request.Builder().url(apiUrl + "/threads/thread_1/messages").build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Benchmark
+  public MessageList decodeStream() {
+    return assistantService.listMessages("thread_1", new ListRequest());
+  }
+
+  @Benchmark
+  public MessageList decodeString() throws IOException {
+    try (Response response = client.newCall(request).execute()) {
+      return jsonCodec.read(response.body().string(), MessageList.class);
+    }
+  }
+}
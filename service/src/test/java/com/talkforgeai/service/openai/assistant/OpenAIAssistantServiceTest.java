@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.assistant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.assistant.dto.ListRequest;
+import com.talkforgeai.service.openai.assistant.dto.Message;
+import com.talkforgeai.service.openai.assistant.dto.MessageList;
+import com.talkforgeai.service.openai.assistant.dto.Role;
+import com.talkforgeai.service.openai.exception.OpenAIException;
+import com.talkforgeai.service.properties.HttpClientProperties;
+import com.talkforgeai.service.properties.OpenAIProperties;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the blocking client against a local stub of the Assistants API.
+ */
+class OpenAIAssistantServiceTest {
+
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+
+  private HttpServer server;
+  private OpenAIAssistantService assistantService;
+
+  /**
+   * Returns a message list as the Assistants API sends it, with the given number of messages.
+   */
+  static String messageList(int count) {
+    StringBuilder json = new StringBuilder("{\"object\": \"list\", \"data\": [");
+    for (int i = 1; i <= count; i++) {
+      json.append(i > 1 ? "," : "")
+          .append("{\"id\": \"msg_").append(i).append("\", \"object\": \"thread.message\", ")
+          .append("\"created_at\": 1699061776, \"thread_id\": \"thread_1\", ")
+          .append("\"role\": \"").append(i % 2 == 0 ? "assistant" : "user").append("\", ")
+          .append("\"content\": [{\"type\": \"text\", \"text\": {\"value\": \"Message ")
+          .append(i).append(" explains how to sort an array in Java.\", \"annotations\": []}}], ")
+          .append("\"file_ids\": [], \"assistant_id\": \"asst_1\", \"run_id\": \"run_1\", ")
+          .append("\"metadata\": {}}");
+    }
+    return json.append("], \"first_id\": \"msg_1\", \"last_id\": \"msg_").append(count)
+        .append("\", \"has_more\": false}").toString();
+  }
+
+  static OpenAIAssistantService assistantService(String apiUrl) {
+    return new OpenAIAssistantService(
+        new OpenAIProperties("key", apiUrl, null, null, null, null, null, false),
+        new UpstreamHttpClients(new OkHttpClient(), new HttpClientProperties(null)),
+        new JsonCodec());
+  }
+
+  @BeforeEach
+  void before() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/v1/threads/thread_1/messages",
+        exchange -> respond(exchange, 200, messageList(3)));
+    server.createContext("/v1/assistants/asst_1", exchange -> respond(exchange, 200,
+        "{\"id\": \"asst_1\", \"object\": \"assistant.deleted\", \"deleted\": true}"));
+    server.createContext("/v1/assistants/unknown", exchange -> respond(exchange, 404,
+        "{\"error\": {\"message\": \"No assistant found\", \"type\": \"invalid_request_error\"}}"));
+    server.createContext("/v1/models", exchange -> respond(exchange, 500,
+        "{\"error\": {\"message\": \"The server had an error\", \"type\": \"server_error\"}}"));
+    server.start();
+
+    assistantService = assistantService(
+        "http://localhost:" + server.getAddress().getPort() + "/v1");
+  }
+
+  @AfterEach
+  void after() {
+    server.stop(0);
+  }
+
+  @Test
+  void responseIsDecoded() {
+    MessageList messages = assistantService.listMessages("thread_1", new ListRequest(3, "asc"));
+
+    assertEquals(List.of("msg_1", "msg_2", "msg_3"),
+        messages.data().stream().map(Message::id).toList());
+    Message second = messages.data().get(1);
+    assertEquals(Role.ASSISTANT, second.role());
+    assertEquals("Message 2 explains how to sort an array in Java.",
+        second.content().get(0).text().value());
+    assertEquals("msg_3", messages.lastId());
+    assertEquals(List.of("GET /v1/threads/thread_1/messages?limit=3&order=asc"), requests);
+  }
+
+  @Test
+  void errorBodyIsMappedToOpenAIException() {
+    OpenAIException exception = assertThrows(OpenAIException.class,
+        () -> assistantService.retrieveAssistant("unknown"));
+
+    assertEquals("No assistant found", exception.getErrorDetail().message());
+    assertEquals(404, exception.getStatusCode());
+  }
+
+  @Test
+  void serverErrorIsMappedToOpenAIException() {
+    OpenAIException exception = assertThrows(OpenAIException.class,
+        () -> assistantService.retrieveModels());
+
+    assertEquals("server_error", exception.getErrorDetail().type());
+    assertEquals(500, exception.getStatusCode());
+  }
+
+  @Test
+  void responseOfVoidRequestIsNotDecoded() {
+    assistantService.deleteAssistant("asst_1");
+
+    assertEquals(List.of("DELETE /v1/assistants/asst_1"), requests);
+  }
+
+  private void respond(HttpExchange exchange, int status, String json) throws IOException {
+    requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI());
+
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
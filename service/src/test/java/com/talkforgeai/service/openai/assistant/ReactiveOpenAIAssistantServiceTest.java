@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.assistant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.assistant.dto.ListRequest;
+import com.talkforgeai.service.openai.assistant.dto.Message;
+import com.talkforgeai.service.openai.assistant.dto.Run;
+import com.talkforgeai.service.openai.assistant.dto.RunConversationRequest;
+import com.talkforgeai.service.openai.assistant.dto.RunStreamEvent;
+import com.talkforgeai.service.openai.exception.OpenAIException;
+import com.talkforgeai.service.properties.OpenAIProperties;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Runs the reactive client against a local stub of the Assistants API.
+ */
+class ReactiveOpenAIAssistantServiceTest {
+
+  private final List<String> queries = new CopyOnWriteArrayList<>();
+  private final AtomicInteger runPolls = new AtomicInteger();
+  private final List<String> runRequests = new CopyOnWriteArrayList<>();
+
+  private HttpServer server;
+  private ReactiveOpenAIAssistantService assistantService;
+
+  @BeforeEach
+  void before() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/v1/threads/thread_1/messages", this::messages);
+    server.createContext("/v1/threads/thread_1/runs/run_1", this::run);
+    server.createContext("/v1/threads/thread_1/runs", this::streamRun);
+    server.createContext("/v1/assistants/unknown", exchange -> respond(exchange, 404,
+        "{\"error\": {\"message\": \"No assistant found\", \"type\": \"invalid_request_error\"}}"));
+    server.start();
+
+    OpenAIProperties openAIProperties = new OpenAIProperties("key",
+        "http://localhost:" + server.getAddress().getPort() + "/v1", null, null, null, null, null,
+        false);
+    assistantService = new ReactiveOpenAIAssistantService(openAIProperties, WebClient.builder(),
+        new JsonCodec());
+  }
+
+  @AfterEach
+  void after() {
+    server.stop(0);
+  }
+
+  @Test
+  void allMessagesAreListedAcrossPages() {
+    List<String> ids = assistantService.listAllMessages("thread_1", new ListRequest(2, "asc"))
+        .map(Message::id)
+        .collectList()
+        .block();
+
+    assertEquals(List.of("msg_1", "msg_2", "msg_3", "msg_4", "msg_5"), ids);
+    assertEquals(List.of("limit=2&order=asc", "limit=2&order=asc&after=msg_2",
+        "limit=2&order=asc&after=msg_4"), queries);
+  }
+
+  @Test
+  void runIsPolledUntilCompleted() {
+    Run run = assistantService.awaitRun("thread_1", "run_1", Duration.ofMillis(10)).block();
+
+    assertEquals("completed", run.status());
+    assertEquals(3, runPolls.get());
+  }
+
+  @Test
+  void streamedRunIsMappedToEvents() {
+    List<RunStreamEvent> events = assistantService.streamRun("thread_1",
+        new RunConversationRequest("asst_1")).collectList().block();
+
+    assertEquals(List.of(
+        "thread.run.created",
+        "msg_1",
+        "Hello",
+        " world.",
+        "Hello world.",
+        "thread.run.completed"), events.stream().map(event -> switch (event) {
+      case RunStreamEvent.RunUpdated runUpdated -> runUpdated.event();
+      case RunStreamEvent.MessageCreated created -> created.message().id();
+      case RunStreamEvent.TextDelta delta -> delta.text();
+      case RunStreamEvent.MessageCompleted completed ->
+          completed.message().content().get(0).text().value();
+    }).toList());
+    assertTrue(runRequests.get(0).contains("\"stream\":true"));
+  }
+
+  @Test
+  void errorResponseIsMappedToOpenAIException() {
+    OpenAIException exception = assertThrows(OpenAIException.class,
+        () -> assistantService.retrieveAssistant("unknown").block());
+
+    assertEquals("No assistant found", exception.getErrorDetail().message());
+    assertEquals(404, exception.getStatusCode());
+  }
+
+  private void messages(HttpExchange exchange) throws IOException {
+    String query = exchange.getRequestURI().getRawQuery();
+    queries.add(query);
+
+    int first = 1;
+    if (query.contains("after=msg_")) {
+      first = Integer.parseInt(query.replaceAll(".*after=msg_", "")) + 1;
+    }
+    int last = Math.min(first + 1, 5);
+    StringBuilder data = new StringBuilder();
+    for (int i = first; i <= last; i++) {
+      data.append(i > first ? "," : "").append("{\"id\": \"msg_").append(i).append("\"}");
+    }
+
+    respond(exchange, 200, "{\"object\": \"list\", \"data\": [" + data + "], \"first_id\": \"msg_"
+        + first + "\", \"last_id\": \"msg_" + last + "\", \"has_more\": " + (last < 5) + "}");
+  }
+
+  private void run(HttpExchange exchange) throws IOException {
+    String status = switch (runPolls.incrementAndGet()) {
+      case 1 -> "queued";
+      case 2 -> "in_progress";
+      default -> "completed";
+    };
+    respond(exchange, 200, "{\"id\": \"run_1\", \"status\": \"" + status + "\"}");
+  }
+
+  private void streamRun(HttpExchange exchange) throws IOException {
+    runRequests.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+
+    String message = "{\"id\": \"msg_1\", \"content\": [{\"type\": \"text\", "
+        + "\"text\": {\"value\": \"Hello world.\"}}]}";
+    String events = event("thread.run.created", "{\"id\": \"run_1\", \"status\": \"queued\"}")
+        + event("thread.run.step.created", "{\"id\": \"step_1\"}")
+        + event("thread.message.created", "{\"id\": \"msg_1\", \"content\": []}")
+        + event("thread.message.delta", delta("Hello"))
+        + event("thread.message.delta", delta(" world."))
+        + event("thread.message.completed", message)
+        + event("thread.run.completed", "{\"id\": \"run_1\", \"status\": \"completed\"}")
+        + event("done", "[DONE]");
+
+    byte[] body = events.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static String event(String name, String data) {
+    return "event: " + name + "\ndata: " + data + "\n\n";
+  }
+
+  private static String delta(String text) {
+    return "{\"id\": \"msg_1\", \"delta\": {\"content\": [{\"index\": 0, \"type\": \"text\", "
+        + "\"text\": {\"value\": \"" + text + "\"}}]}}";
+  }
+
+  private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.chat;
+
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatMessage;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse.StreamResponseChoice;
+import com.talkforgeai.service.properties.ChatStreamProperties;
+import com.talkforgeai.service.properties.HttpClientProperties;
+import com.talkforgeai.service.properties.OpenAIProperties;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * Server-side cost of relaying the recorded chat stream, per complete response. Compares binding
+ * each chunk to the DTO with the streaming extractor, and one event per token with coalesced
+ * events. Each event is serialized the way it is written to the client.
+ * <p>
+ * Not run by the test suite; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatStreamBenchmark {
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+  private final ChatStreamContentExtractor extractor = new ChatStreamContentExtractor(
+      jsonCodec.getObjectMapper().getFactory());
+
+  private List<String> chunks;
+  private OpenAIChatService perToken;
+  private OpenAIChatService coalescing;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ChatStreamBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    chunks = ChatStreamContentExtractorTest.recordedChunks();
+    perToken = chatService(new ChatStreamProperties(1, Duration.ofMillis(50), false));
+    coalescing = chatService(new ChatStreamProperties(8, Duration.ofMillis(50), true));
+  }
+
+  @Benchmark
+  public void bindDto(Blackhole blackhole) throws IOException {
+    for (String chunk : chunks) {
+      OpenAIChatStreamResponse response = jsonCodec.read(chunk, OpenAIChatStreamResponse.class);
+      blackhole.consume(response.choices().get(0).delta().content());
+    }
+  }
+
+  @Benchmark
+  public void extractContent(Blackhole blackhole) throws IOException {
+    for (String chunk : chunks) {
+      blackhole.consume(extractor.extractContent(chunk));
+    }
+  }
+
+  @Benchmark
+  public void relayPerToken(Blackhole blackhole) {
+    relay(perToken, blackhole);
+  }
+
+  @Benchmark
+  public void relayCoalesced(Blackhole blackhole) {
+    relay(coalescing, blackhole);
+  }
+
+  private void relay(OpenAIChatService chatService, Blackhole blackhole) {
+    chatService.coalesce(Flux.fromIterable(chunks).handle((chunk, sink) -> {
+          try {
+            String content = extractor.extractContent(chunk);
+            if (content != null && !content.isEmpty()) {
+              sink.next(content);
+            }
+          } catch (IOException e) {
+            sink.error(e);
+          }
+        }))
+        .map(content -> new StreamResponseChoice(0,
+            new OpenAIChatMessage(OpenAIChatMessage.Role.ASSISTANT, content), null))
+        .doOnNext(choice -> {
+          try {
+            blackhole.consume(jsonCodec.write(choice));
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+        })
+        .blockLast();
+  }
+
+  private static OpenAIChatService chatService(ChatStreamProperties streamProperties) {
+    return new OpenAIChatService(
+        new OpenAIProperties("key", null, null, null, null, null, null, false),
+        new UpstreamHttpClients(new OkHttpClient(), new HttpClientProperties(null)),
+        WebClient.builder(), new JsonCodec(), streamProperties);
+  }
+}
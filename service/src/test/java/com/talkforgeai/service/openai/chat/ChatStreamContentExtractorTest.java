@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ChatStreamContentExtractorTest {
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+  private final ChatStreamContentExtractor extractor = new ChatStreamContentExtractor(
+      jsonCodec.getObjectMapper().getFactory());
+
+  static List<String> recordedChunks() throws IOException {
+    try (InputStream in = ChatStreamContentExtractorTest.class
+        .getResourceAsStream("/openai/chat-stream.txt")) {
+      return Arrays.stream(new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n\n"))
+          .map(event -> event.substring("data: ".length()))
+          .filter(data -> !"[DONE]".equals(data))
+          .toList();
+    }
+  }
+
+  @Test
+  void contentMatchesDtoBindingForRecordedStream() throws IOException {
+    for (String chunk : recordedChunks()) {
+      OpenAIChatStreamResponse response = jsonCodec.read(chunk, OpenAIChatStreamResponse.class);
+
+      assertEquals(response.choices().get(0).delta().content(), extractor.extractContent(chunk),
+          chunk);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "{\"choices\": [{\"delta\": {\"content\": null}}]}",
+      "{\"choices\": [{\"delta\": {}, \"finish_reason\": \"stop\"}]}",
+      "{\"choices\": [{\"delta\": {\"function_call\": {\"content\": \"x\"}}}]}",
+      "{\"choices\": []}",
+      "{\"usage\": {\"total_tokens\": 3}}",
+      "[]"
+  })
+  void missingContentIsNull(String chunk) throws IOException {
+    assertNull(extractor.extractContent(chunk));
+  }
+
+  @Test
+  void otherFieldsAreSkippedInAnyOrder() throws IOException {
+    String chunk = """
+        {"usage": {"choices": [{"delta": {"content": "wrong"}}]},
+         "choices": [{"finish_reason": null, "logprobs": {"content": [1, 2]},
+                      "delta": {"role": "assistant", "content": "caf\\u00e9 \\"1\\""}},
+                     {"delta": {"content": "second"}}],
+         "id": "chatcmpl-1"}
+        """;
+
+    assertEquals("caf\u00e9 \"1\"", extractor.extractContent(chunk));
+  }
+}
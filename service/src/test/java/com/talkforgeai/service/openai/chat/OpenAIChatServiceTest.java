@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatRequest;
+import com.talkforgeai.service.openai.chat.dto.OpenAIChatStreamResponse;
+import com.talkforgeai.service.properties.ChatStreamProperties;
+import com.talkforgeai.service.properties.HttpClientProperties;
+import com.talkforgeai.service.properties.OpenAIProperties;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streams a recorded chat completion from a local stub of the chat API.
+ */
+class OpenAIChatServiceTest {
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+
+  private HttpServer server;
+  private List<String> recordedTokens;
+
+  @BeforeEach
+  void before() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/v1/chat/completions", this::chatCompletions);
+    server.start();
+
+    recordedTokens = ChatStreamContentExtractorTest.recordedChunks().stream()
+        .map(chunk -> read(chunk).choices().get(0).delta().content())
+        .filter(content -> content != null && !content.isEmpty())
+        .toList();
+  }
+
+  @AfterEach
+  void after() {
+    server.stop(0);
+  }
+
+  @Test
+  void tokensAreSentOneByOneWithoutBatching() {
+    List<String> events = stream(new ChatStreamProperties(1, Duration.ofSeconds(1), false));
+
+    assertEquals(recordedTokens, events);
+  }
+
+  @Test
+  void tokensAreCoalescedIntoFewerEvents() {
+    List<String> events = stream(new ChatStreamProperties(8, Duration.ofSeconds(1), true));
+
+    assertEquals(String.join("", recordedTokens), String.join("", events));
+    assertTrue(events.size() * 4 < recordedTokens.size(),
+        events.size() + " events for " + recordedTokens.size() + " tokens");
+  }
+
+  @Test
+  void batchEndsWithSentenceOrTokenLimit() {
+    OpenAIChatService chatService = chatService(
+        new ChatStreamProperties(3, Duration.ofSeconds(1), true));
+
+    List<String> batches = chatService.coalesce(
+            Flux.just("Hello", " world", ".", " How", " are", " you", "?", " Fine", "\n", "Bye"))
+        .collectList()
+        .block();
+
+    assertEquals(List.of("Hello world.", " How are you", "?", " Fine\n", "Bye"), batches);
+  }
+
+  @Test
+  void batchIsFlushedAfterDelayEvenWithoutDemand() throws Exception {
+    OpenAIChatService chatService = chatService(
+        new ChatStreamProperties(10, Duration.ofMillis(100), false));
+
+    // "c" waits out its delay while the subscriber is still busy with "ab".
+    Flux<String> tokens = Flux.just("a", "b")
+        .concatWith(Mono.delay(Duration.ofMillis(300)).thenMany(Flux.just("c")))
+        .concatWith(Mono.delay(Duration.ofMillis(900)).thenMany(Flux.just("d")));
+
+    List<String> batches = new CopyOnWriteArrayList<>();
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    chatService.coalesce(tokens).subscribe(new BaseSubscriber<>() {
+      @Override
+      protected void hookOnSubscribe(Subscription subscription) {
+        request(1);
+      }
+
+      @Override
+      protected void hookOnNext(String batch) {
+        batches.add(batch);
+        // Like a slow SSE client, ask for the next batch only after a while.
+        Mono.delay(Duration.ofMillis(500)).subscribe(tick -> request(1));
+      }
+
+      @Override
+      protected void hookOnComplete() {
+        done.complete(null);
+      }
+
+      @Override
+      protected void hookOnError(Throwable throwable) {
+        done.completeExceptionally(throwable);
+      }
+    });
+
+    done.get(5, TimeUnit.SECONDS);
+    assertEquals(List.of("ab", "c", "d"), batches);
+  }
+
+  private List<String> stream(ChatStreamProperties streamProperties) {
+    OpenAIChatRequest request = new OpenAIChatRequest();
+    request.setModel("gpt-4");
+
+    return chatService(streamProperties).stream(request, null)
+        .map(event -> event.data().delta().content())
+        .collectList()
+        .block();
+  }
+
+  private OpenAIChatService chatService(ChatStreamProperties streamProperties) {
+    String apiUrl = "http://localhost:" + server.getAddress().getPort() + "/v1";
+    OpenAIProperties openAIProperties = new OpenAIProperties("key", apiUrl,
+        apiUrl + "/chat/completions", null, null, null, null, false);
+
+    return new OpenAIChatService(openAIProperties,
+        new UpstreamHttpClients(new OkHttpClient(), new HttpClientProperties(null)),
+        WebClient.builder(), jsonCodec, streamProperties);
+  }
+
+  private OpenAIChatStreamResponse read(String chunk) {
+    try {
+      return jsonCodec.read(chunk, OpenAIChatStreamResponse.class);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void chatCompletions(HttpExchange exchange) throws IOException {
+    exchange.getRequestBody().readAllBytes();
+
+    byte[] body;
+    try (InputStream in = getClass().getResourceAsStream("/openai/chat-stream.txt")) {
+      body = in.readAllBytes();
+    }
+    exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.openai.whisper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.talkforgeai.service.http.UpstreamHttpClients;
+import com.talkforgeai.service.json.JsonCodec;
+import com.talkforgeai.service.openai.whisper.dto.TranscriptionResponse;
+import com.talkforgeai.service.properties.HttpClientProperties;
+import com.talkforgeai.service.properties.OpenAIProperties;
+import com.talkforgeai.service.properties.WhisperProperties;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs the transcription against a local stub of the Whisper API. The stub answers each chunk
+ * with the number of the tone it contains, identified by its amplitude, and answers earlier
+ * chunks more slowly so they complete out of order.
+ */
+class OpenAIWhisperServiceTest {
+
+  private static final AudioFormat FORMAT = new AudioFormat(8000, 16, 1, true, false);
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger maxActive = new AtomicInteger();
+
+  @TempDir
+  Path directory;
+
+  private HttpServer server;
+  private OpenAIWhisperService whisperService;
+
+  @BeforeEach
+  void before() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/v1/audio/transcriptions", this::transcribe);
+    server.setExecutor(Executors.newFixedThreadPool(8));
+    server.start();
+
+    OpenAIProperties openAIProperties = new OpenAIProperties("key",
+        "http://localhost:" + server.getAddress().getPort() + "/v1", null, null, null, null, null,
+        false);
+    whisperService = new OpenAIWhisperService(openAIProperties,
+        new UpstreamHttpClients(new OkHttpClient(), new HttpClientProperties(null)),
+        new WhisperProperties(Duration.ofSeconds(4), Duration.ofSeconds(2), 2), jsonCodec);
+  }
+
+  @AfterEach
+  void after() {
+    whisperService.shutdown();
+    server.stop(0);
+  }
+
+  @Test
+  void longRecordingIsTranscribedInChunks() throws IOException {
+    Path recording = recording(4);
+
+    String json = whisperService.transcribe(recording, AudioType.WAV);
+
+    assertEquals("tone 1 tone 2 tone 3 tone 4",
+        jsonCodec.read(json, TranscriptionResponse.class).text());
+    assertEquals(4, requests.get());
+    assertEquals(2, maxActive.get());
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  void shortRecordingIsSentAsItIs() throws IOException {
+    Path recording = recording(1);
+
+    String json = whisperService.transcribe(recording, AudioType.WAV);
+
+    assertEquals("tone 1", jsonCodec.read(json, TranscriptionResponse.class).text());
+    assertEquals(1, requests.get());
+  }
+
+  /**
+   * Writes tones of three seconds separated by a second of silence, tone n with amplitude n*1000.
+   */
+  private Path recording(int tones) throws IOException {
+    ByteArrayOutputStream pcm = new ByteArrayOutputStream();
+    for (int tone = 1; tone <= tones; tone++) {
+      if (tone > 1) {
+        pcm.write(new byte[(int) FORMAT.getFrameRate() * 2]);
+      }
+      for (int frame = 0; frame < FORMAT.getFrameRate() * 3; frame++) {
+        int sample = frame % 2 == 0 ? tone * 1000 : -tone * 1000;
+        pcm.write(sample & 0xFF);
+        pcm.write((sample >> 8) & 0xFF);
+      }
+    }
+
+    Path file = directory.resolve("recording.wav");
+    byte[] data = pcm.toByteArray();
+    AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(data), FORMAT,
+        data.length / FORMAT.getFrameSize()), AudioFileFormat.Type.WAVE, file.toFile());
+    return file;
+  }
+
+  private void transcribe(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+    try {
+      int tone = tone(exchange.getRequestBody().readAllBytes());
+      Thread.sleep((5 - tone) * 100L);
+
+      byte[] response = jsonCodec.write(new TranscriptionResponse(" tone " + tone + " "))
+          .getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(response);
+      }
+    } catch (InterruptedException | UnsupportedAudioFileException e) {
+      exchange.sendResponseHeaders(500, -1);
+    } finally {
+      active.decrementAndGet();
+      exchange.close();
+    }
+  }
+
+  private int tone(byte[] multipart) throws IOException, UnsupportedAudioFileException {
+    int offset = new String(multipart, StandardCharsets.ISO_8859_1).indexOf("RIFF");
+    assertTrue(offset >= 0);
+
+    try (AudioInputStream in = AudioSystem.getAudioInputStream(
+        new ByteArrayInputStream(multipart, offset, multipart.length - offset))) {
+      byte[] pcm = in.readAllBytes();
+      int max = 0;
+      for (int i = 0; i + 1 < pcm.length; i += 2) {
+        max = Math.max(max, Math.abs((short) ((pcm[i + 1] << 8) | (pcm[i] & 0xFF))));
+      }
+      return max / 1000;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2023 Jean Schmitz.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.talkforgeai.service.plantuml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.talkforgeai.service.properties.PlantUMLProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PlantUMLServiceTest {
+
+  SimpleMeterRegistry meterRegistry;
+  CountDownLatch started;
+  CountDownLatch release;
+  PlantUMLService plantUMLService;
+
+  @BeforeEach
+  void before() {
+    meterRegistry = new SimpleMeterRegistry();
+    started = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+  }
+
+  @AfterEach
+  void after() {
+    release.countDown();
+    plantUMLService.shutdown();
+  }
+
+  @Test
+  void rejectsDiagramsWhileQueueIsFull() throws Exception {
+    plantUMLService = createService(1, 1, Duration.ofSeconds(10));
+
+    CompletableFuture<?> running = CompletableFuture.runAsync(
+        () -> plantUMLService.generateUmlDiagram("running", "running.png"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture<?> queued = CompletableFuture.runAsync(
+        () -> plantUMLService.generateUmlDiagram("queued", "queued.png"));
+    awaitGauge("plantuml.queue.size", 1);
+
+    assertThrows(PlantUMLException.class,
+        () -> plantUMLService.generateUmlDiagram("rejected", "rejected.png"));
+    assertEquals(1, meterRegistry.get("plantuml.render.rejected").counter().count());
+
+    release.countDown();
+    running.get(5, TimeUnit.SECONDS);
+    queued.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void timedOutRenderIsCountedUntilItFinishes() throws Exception {
+    plantUMLService = createService(1, 1, Duration.ofMillis(100));
+
+    PlantUMLException exception = assertThrows(PlantUMLException.class,
+        () -> plantUMLService.generateUmlDiagram("slow", "slow.png"));
+
+    assertInstanceOf(TimeoutException.class, exception.getCause());
+    assertEquals(1, meterRegistry.get("plantuml.render.timeouts").counter().count());
+    assertEquals(1, gauge("plantuml.render.abandoned"), "render ignores the interrupt");
+
+    release.countDown();
+    awaitGauge("plantuml.render.abandoned", 0);
+  }
+
+  @Test
+  void timedOutDiagramInQueueIsNotCountedAsAbandoned() throws Exception {
+    plantUMLService = createService(1, 1, Duration.ofMillis(100));
+
+    CompletableFuture<?> running = CompletableFuture.runAsync(
+        () -> assertThrows(PlantUMLException.class,
+            () -> plantUMLService.generateUmlDiagram("running", "running.png")));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertThrows(PlantUMLException.class,
+        () -> plantUMLService.generateUmlDiagram("queued", "queued.png"));
+    running.get(5, TimeUnit.SECONDS);
+
+    assertEquals(1, gauge("plantuml.render.abandoned"));
+  }
+
+  /**
+   * Creates the service with a renderer that, like PlantUML's layout, ignores interrupts until it
+   * is released.
+   */
+  private PlantUMLService createService(int threads, int queueCapacity, Duration timeout) {
+    return new PlantUMLService(new PlantUMLProperties(threads, queueCapacity, timeout),
+        meterRegistry, (source, fileName, format) -> {
+      started.countDown();
+      boolean released = false;
+      while (!released) {
+        try {
+          released = release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          // Keep rendering.
+        }
+      }
+      return null;
+    });
+  }
+
+  private double gauge(String name) {
+    return meterRegistry.get(name).gauge().value();
+  }
+
+  private void awaitGauge(String name, double value) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (gauge(name) != value && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(value, gauge(name), name);
+  }
+}